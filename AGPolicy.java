@@ -0,0 +1,246 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// AG scheduling, see CPUScheduler.agScheduling
+class AGPolicy implements SchedulingPolicy {
+    private PolicyScheduler core;
+    private AGReadyQueue readyQueue;
+
+    // Quantum in progress
+    private long quantumStart;
+    private int originalQuantum, phase1End, phase2End;
+
+    // Why the running process is being preempted: phase 2 or 3 with the process that takes over, or 0
+    private int preemptPhase, preemptingProcess = -1;
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {
+        this.core = core;
+        this.readyQueue = new AGReadyQueue(capacity);
+    }
+
+    @Override
+    public void reset() {
+        readyQueue.clear();
+        quantumStart = 0;
+        originalQuantum = phase1End = phase2End = 0;
+        preemptPhase = 0;
+        preemptingProcess = -1;
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        AGPolicy c = new AGPolicy();
+        c.attach(core, 16);
+        c.readyQueue.copyFrom(readyQueue);
+        c.quantumStart = quantumStart;
+        c.originalQuantum = originalQuantum;
+        c.phase1End = phase1End;
+        c.phase2End = phase2End;
+        c.preemptPhase = preemptPhase;
+        c.preemptingProcess = preemptingProcess;
+        return c;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        readyQueue.grow(capacity);
+    }
+
+    @Override
+    public void onArrival(int slot, long time) {
+        readyQueue.addLast(slot);
+    }
+
+    @Override
+    public int pickNext(long time) {
+        return readyQueue.isEmpty() ? -1 : readyQueue.pollFirst();
+    }
+
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        readyQueue.forEach(visit);
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        quantumStart = time;
+        originalQuantum = core.process(slot).quantum;
+        int quarter = (int) Math.ceil(originalQuantum * 0.25);
+        phase1End = quarter;
+        phase2End = quarter + quarter;
+        return nextBoundary(time);
+    }
+
+    // A used up quantum goes to the back of the queue ahead of the arrivals of the same tick
+    @Override
+    public boolean onSliceEnd(int running, long time) {
+        if (time - quantumStart < originalQuantum) return false;
+        preemptPhase = 0;
+        preemptingProcess = -1;
+        return true;
+    }
+
+    // Top of a time unit: arrivals up to now are in the queue, check for preemption
+    @Override
+    public long onTickBoundary(int running, long time) {
+        long used = time - quantumStart;
+        Process cur = core.process(running);
+        if (used >= phase1End && used < phase2End) {
+            int best = readyQueue.highestPriority();
+            if (best >= 0 && core.process(best).priority < cur.priority) return preemptBy(2, best, time);
+        } else if (used >= phase2End) {
+            int best = readyQueue.shortestRemaining();
+            if (best >= 0 && core.process(best).remainingTime < cur.remainingTime) return preemptBy(3, best, time);
+        }
+        return nextBoundary(time);
+    }
+
+    private long preemptBy(int phase, int slot, long time) {
+        preemptPhase = phase;
+        preemptingProcess = slot;
+        return time;
+    }
+
+    // Decisions can only change at an arrival or a phase boundary
+    private long nextBoundary(long time) {
+        long used = time - quantumStart;
+        long end = quantumStart + originalQuantum;
+        if (used < phase1End) return Math.min(end, quantumStart + phase1End);
+        if (used < phase2End) return Math.min(end, quantumStart + phase2End);
+        return end;
+    }
+
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        return preemptPhase == 2 ? MetricsListener.Preemption.AG_PRIORITY
+                : preemptPhase == 3 ? MetricsListener.Preemption.AG_SHORTER_JOB
+                : MetricsListener.Preemption.QUANTUM_EXPIRED;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        Process cur = core.process(running);
+        int remainingQ = originalQuantum - (int) (time - quantumStart);
+        if (preemptPhase == 2) {
+            cur.quantum += (int) Math.ceil(remainingQ / 2.0);
+        } else if (preemptPhase == 3) {
+            cur.quantum += remainingQ;
+        } else {
+            cur.quantum += 2;
+        }
+        core.quantumUpdated(cur, cur.quantum);
+        readyQueue.addLast(running);
+
+        // The preempting process jumps to the front so it runs next
+        if (preemptingProcess >= 0) {
+            readyQueue.remove(preemptingProcess);
+            readyQueue.addFirst(preemptingProcess);
+        }
+    }
+
+    @Override
+    public void onCompletion(int slot, long time) {
+        core.quantumUpdated(core.process(slot), 0);
+    }
+
+    // AG ready queue: one set of processes with three indexes over it. A linked
+    // list over the slots gives the FIFO order, and every entry carries a
+    // sequence number that grows towards the tail, so "first in queue order"
+    // becomes a plain tie-breaker for the priority and remaining-time heaps.
+    private class AGReadyQueue {
+        private int[] next, prev;
+        private long[] seq;
+        private final IndexedHeap byPriority, byRemaining;
+        private int head = -1, tail = -1;
+        private long headSeq = 0, tailSeq = 0;
+
+        AGReadyQueue(int capacity) {
+            next = new int[capacity];
+            prev = new int[capacity];
+            seq = new long[capacity];
+            byPriority = new IndexedHeap(capacity, (a, b) -> {
+                int c = Integer.compare(core.process(a).priority, core.process(b).priority);
+                return c != 0 ? c : Long.compare(seq[a], seq[b]);
+            });
+            byRemaining = new IndexedHeap(capacity, (a, b) -> {
+                int c = Integer.compare(core.process(a).remainingTime, core.process(b).remainingTime);
+                return c != 0 ? c : Long.compare(seq[a], seq[b]);
+            });
+        }
+
+        void grow(int capacity) {
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            seq = Arrays.copyOf(seq, capacity);
+            byPriority.ensureCapacity(capacity);
+            byRemaining.ensureCapacity(capacity);
+        }
+
+        void copyFrom(AGReadyQueue other) {
+            next = other.next.clone();
+            prev = other.prev.clone();
+            seq = other.seq.clone();
+            byPriority.copyFrom(other.byPriority);
+            byRemaining.copyFrom(other.byRemaining);
+            head = other.head;
+            tail = other.tail;
+            headSeq = other.headSeq;
+            tailSeq = other.tailSeq;
+        }
+
+        void clear() {
+            byPriority.clear();
+            byRemaining.clear();
+            head = tail = -1;
+            headSeq = tailSeq = 0;
+        }
+
+        boolean isEmpty() { return head < 0; }
+
+        int highestPriority() { return byPriority.isEmpty() ? -1 : byPriority.peek(); }
+
+        int shortestRemaining() { return byRemaining.isEmpty() ? -1 : byRemaining.peek(); }
+
+        void addLast(int slot) {
+            seq[slot] = ++tailSeq;
+            prev[slot] = tail;
+            next[slot] = -1;
+            if (tail >= 0) next[tail] = slot; else head = slot;
+            tail = slot;
+            index(slot);
+        }
+
+        void addFirst(int slot) {
+            seq[slot] = --headSeq;
+            next[slot] = head;
+            prev[slot] = -1;
+            if (head >= 0) prev[head] = slot; else tail = slot;
+            head = slot;
+            index(slot);
+        }
+
+        // Queue order, head first
+        void forEach(IntPredicate visit) {
+            for (int slot = head; slot >= 0; slot = next[slot]) if (!visit.test(slot)) return;
+        }
+
+        int pollFirst() {
+            int slot = head;
+            remove(slot);
+            return slot;
+        }
+
+        void remove(int slot) {
+            if (prev[slot] >= 0) next[prev[slot]] = next[slot]; else head = next[slot];
+            if (next[slot] >= 0) prev[next[slot]] = prev[slot]; else tail = prev[slot];
+            byPriority.remove(slot);
+            byRemaining.remove(slot);
+        }
+
+        private void index(int slot) {
+            byPriority.add(slot);
+            byRemaining.add(slot);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Runs every workload in a directory or matching a glob through a set of
+ * schedulers and summarises them per algorithm: waiting, turnaround and
+ * response time distributions (count, mean, variance and percentiles from
+ * {@link Histogram}s) over all processes of all workloads, and how many
+ * workloads each algorithm had the lowest average waiting time on.
+ *
+ * Workloads are handed out to worker threads one at a time. Each worker
+ * records into its own {@link Summary} per algorithm and the summaries are
+ * merged at the end, so the threads share nothing but the file listing and
+ * memory does not grow with the number of workloads. A workload counts
+ * only if every scheduler gets through it: its records are collected on
+ * their own and merged once all of them have, and failed workloads are
+ * listed in the report instead. Traces are streamed from their mapping; a
+ * JSON workload is read whole, since test files are not necessarily in
+ * arrival order, and is run with the contextSwitch, rrQuantum and
+ * agingInterval in its input (Main's defaults if missing).
+ */
+public class AggregateReport {
+
+    // Mergeable per-algorithm accumulator; also the listener the schedulers report completions to
+    public static class Summary implements ScheduleListener {
+        public final Algorithm algorithm;
+        public final Histogram waitingTime = new Histogram();
+        public final Histogram turnaroundTime = new Histogram();
+        public final Histogram responseTime = new Histogram();
+        public long workloads;
+        public long wins; // workloads on which no algorithm had a lower average waiting time
+
+        public Summary(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public void onCompletion(Process p) {
+            waitingTime.record(p.waitingTime);
+            turnaroundTime.record(p.turnaroundTime);
+            responseTime.record(p.startTime - p.arrivalTime);
+        }
+
+        public void add(Summary other) {
+            if (other.algorithm != algorithm) throw new IllegalArgumentException(algorithm + " vs " + other.algorithm);
+            waitingTime.add(other.waitingTime);
+            turnaroundTime.add(other.turnaroundTime);
+            responseTime.add(other.responseTime);
+            workloads += other.workloads;
+            wins += other.wins;
+        }
+
+        public void reset() {
+            waitingTime.reset();
+            turnaroundTime.reset();
+            responseTime.reset();
+            workloads = 0;
+            wins = 0;
+        }
+    }
+
+    public static class Report {
+        public final List<Summary> summaries;
+        public final long workloads;
+        public final long failed;
+        // "path: error" of every failed workload, in no particular order
+        public final List<String> failures;
+
+        Report(List<Summary> summaries, long workloads, List<String> failures) {
+            this.summaries = summaries;
+            this.workloads = workloads;
+            this.failed = failures.size();
+            this.failures = failures;
+        }
+
+        private static final String[] METRICS = {"waiting", "turnaround", "response"};
+
+        private static Histogram metric(Summary s, int m) {
+            return m == 0 ? s.waitingTime : m == 1 ? s.turnaroundTime : s.responseTime;
+        }
+
+        public String toCsv() {
+            StringBuilder sb = new StringBuilder("algorithm,workloads,processes,wins");
+            for (String m : METRICS) {
+                for (String column : new String[]{"mean", "variance", "p50", "p95", "p99", "max"}) sb.append(',').append(m).append('_').append(column);
+            }
+            sb.append('\n');
+            for (Summary s : summaries) {
+                sb.append(s.algorithm).append(',').append(s.workloads).append(',').append(s.waitingTime.count()).append(',').append(s.wins);
+                for (int m = 0; m < METRICS.length; m++) {
+                    Histogram h = metric(s, m);
+                    sb.append(',').append(h.mean()).append(',').append(h.variance())
+                      .append(',').append(h.valueAtPercentile(50)).append(',').append(h.valueAtPercentile(95))
+                      .append(',').append(h.valueAtPercentile(99)).append(',').append(h.max());
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"workloads\": ").append(workloads).append(", \"failed\": ").append(failed).append(", \"algorithms\": [");
+            for (int i = 0; i < summaries.size(); i++) {
+                Summary s = summaries.get(i);
+                if (i > 0) sb.append(", ");
+                sb.append("{\"algorithm\": \"").append(s.algorithm).append("\", \"workloads\": ").append(s.workloads)
+                  .append(", \"processes\": ").append(s.waitingTime.count()).append(", \"wins\": ").append(s.wins);
+                for (int m = 0; m < METRICS.length; m++) {
+                    Histogram h = metric(s, m);
+                    sb.append(", \"").append(METRICS[m]).append("\": {\"mean\": ").append(h.mean())
+                      .append(", \"variance\": ").append(h.variance()).append(", \"min\": ").append(h.min())
+                      .append(", \"p50\": ").append(h.valueAtPercentile(50)).append(", \"p95\": ").append(h.valueAtPercentile(95))
+                      .append(", \"p99\": ").append(h.valueAtPercentile(99)).append(", \"max\": ").append(h.max()).append('}');
+                }
+                sb.append('}');
+            }
+            sb.append("], \"failures\": [");
+            for (int i = 0; i < failures.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(SchedulerCli.quote(failures.get(i)));
+            }
+            return sb.append("]}").toString();
+        }
+    }
+
+    /**
+     * Workload files under a directory (recursively), or matching a glob such
+     * as 'tests/**.json' (** crosses directories). A directory yields .json
+     * and .trace files, but not the .json.trace files TraceFile.openCached
+     * keeps next to JSON workloads. The stream has to be closed.
+     */
+    public static Stream<Path> workloads(String spec) throws IOException {
+        Path dir = Paths.get(spec);
+        if (Files.isDirectory(dir)) {
+            return Files.walk(dir).filter(p -> {
+                String name = p.getFileName().toString();
+                return Files.isRegularFile(p) && (name.endsWith(".json") || name.endsWith(".trace") && !name.endsWith(".json.trace"));
+            });
+        }
+        // Walk from the deepest directory that has no glob characters in it
+        Path base = null;
+        for (Path part : dir) {
+            if (part.toString().matches(".*[*?\\[{].*")) break;
+            base = base != null ? base.resolve(part) : dir.isAbsolute() ? dir.getRoot().resolve(part) : part;
+        }
+        if (dir.equals(base)) return Files.isRegularFile(dir) ? Stream.of(dir) : Stream.empty();
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + spec);
+        // A pattern that starts with a glob is matched against paths relative to the working directory
+        boolean relative = base == null;
+        Path start = relative ? Paths.get(".") : base;
+        return Files.walk(start)
+                .map(p -> relative ? start.relativize(p) : p)
+                .filter(p -> matcher.matches(p) && Files.isRegularFile(p));
+    }
+
+    public static Report run(Stream<Path> workloads, List<Algorithm> algorithms, SchedulerConfig traceConfig, int threads)
+            throws InterruptedException {
+        Iterator<Path> paths = workloads.iterator();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                Worker worker = new Worker(algorithms, traceConfig);
+                while (true) {
+                    Path path;
+                    synchronized (paths) {
+                        if (!paths.hasNext()) return worker;
+                        path = paths.next();
+                    }
+                    worker.run(path);
+                }
+            }));
+        }
+        pool.shutdown();
+
+        List<Summary> merged = new ArrayList<>();
+        for (Algorithm a : algorithms) merged.add(new Summary(a));
+        long count = 0;
+        List<String> failures = new ArrayList<>();
+        for (Future<Worker> f : futures) {
+            Worker w;
+            try {
+                w = f.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            for (int i = 0; i < merged.size(); i++) merged.get(i).add(w.summaries[i]);
+            count += w.workloads;
+            failures.addAll(w.failures);
+        }
+        return new Report(merged, count, failures);
+    }
+
+    // One thread's accumulators
+    private static class Worker {
+        final List<Algorithm> algorithms;
+        final SchedulerConfig traceConfig;
+        final Summary[] summaries;
+        // Records of the workload being run, merged into summaries once every scheduler is through it
+        final Summary[] pending;
+        final double[] averages;
+        long workloads;
+        final List<String> failures = new ArrayList<>();
+
+        Worker(List<Algorithm> algorithms, SchedulerConfig traceConfig) {
+            this.algorithms = algorithms;
+            this.traceConfig = traceConfig;
+            summaries = new Summary[algorithms.size()];
+            pending = new Summary[summaries.length];
+            for (int i = 0; i < summaries.length; i++) {
+                summaries[i] = new Summary(algorithms.get(i));
+                pending[i] = new Summary(algorithms.get(i));
+            }
+            averages = new double[summaries.length];
+        }
+
+        void run(Path path) {
+            workloads++;
+            try {
+                List<Process> processes = null;
+                TraceFile trace = null;
+                SchedulerConfig config = traceConfig;
+                if (path.toString().endsWith(".json")) {
+                    processes = new ArrayList<>();
+                    try (WorkloadReader reader = WorkloadReader.open(path, 4)) {
+                        while (reader.hasNext()) processes.add(reader.next());
+                        config = reader.config();
+                    }
+                    processes.sort(Comparator.comparingInt(p -> p.arrivalTime));
+                } else {
+                    trace = TraceFile.open(path);
+                }
+                double best = Double.MAX_VALUE;
+                for (int i = 0; i < summaries.length; i++) {
+                    StreamingScheduler engine = algorithms.get(i).streaming(config, pending[i]).keepQuantumHistory(false);
+                    engine.run(processes != null ? processes.stream().map(Process::copy).iterator() : trace.arrivals());
+                    averages[i] = engine.averageWaitingTime();
+                    best = Math.min(best, averages[i]);
+                }
+                for (int i = 0; i < summaries.length; i++) {
+                    pending[i].workloads = 1;
+                    if (averages[i] == best) pending[i].wins = 1;
+                    summaries[i].add(pending[i]);
+                }
+            } catch (IOException | RuntimeException e) {
+                failures.add(path + ": " + e);
+            } finally {
+                for (Summary s : pending) s.reset();
+            }
+        }
+    }
+
+    /**
+     * Usage: java AggregateReport --workloads dir|'glob' [--algorithms sjf,rr,priority,ag]
+     *        [--format csv|json] [--out report.csv] [--threads N]
+     *        [--rr-quantum 2] [--context-switch 0] [--aging 5]   (for .trace workloads)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        String spec = options.get("workloads");
+        if (spec == null) throw new IllegalArgumentException("Missing --workloads");
+        List<Algorithm> algorithms = new ArrayList<>();
+        for (String a : options.getOrDefault("algorithms", "sjf,rr,priority,ag").split(",")) algorithms.add(Algorithm.parse(a));
+        String format = options.getOrDefault("format", "csv");
+        if (!format.equals("csv") && !format.equals("json")) throw new IllegalArgumentException("Unknown format: " + format);
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        SchedulerConfig config = new SchedulerConfig(
+                Integer.parseInt(options.getOrDefault("rr-quantum", "2")),
+                Integer.parseInt(options.getOrDefault("context-switch", "0")),
+                Integer.parseInt(options.getOrDefault("aging", "5")));
+
+        long start = System.nanoTime();
+        Report report;
+        try (Stream<Path> workloads = workloads(spec)) {
+            report = run(workloads, algorithms, config, threads);
+        }
+        String text = format.equals("csv") ? report.toCsv() : report.toJson() + "\n";
+        if (options.containsKey("out")) {
+            Files.write(Paths.get(options.get("out")), text.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(text);
+        }
+        for (String failure : report.failures) System.err.println("failed: " + failure);
+        System.err.printf("%d workloads (%d failed) in %.1f s%n", report.workloads, report.failed, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.*;
+
+public enum Algorithm {
+    SJF, RR, PRIORITY, AG, MLFQ, CFS, EDF, RM;
+
+    // Tick-based reference implementation from CPUScheduler
+    public SchedulerResult run(List<Process> processes, SchedulerConfig config) {
+        return run(processes, config, null);
+    }
+
+    // Same, reporting to metrics (may be null); EDF and RM only exist event-driven and report nothing
+    public SchedulerResult run(List<Process> processes, SchedulerConfig config, MetricsListener metrics) {
+        switch (this) {
+            case SJF: return CPUScheduler.preemptiveSJF(processes, config.contextSwitch, metrics);
+            case RR: return CPUScheduler.roundRobin(processes, config.rrQuantum, config.contextSwitch, metrics);
+            case PRIORITY: return CPUScheduler.priorityPreemptive(processes, config.contextSwitch, config.agingInterval, metrics);
+            case MLFQ: return CPUScheduler.mlfq(processes, config.mlfqQuanta, config.mlfqBoostInterval, config.contextSwitch, metrics);
+            case CFS: return CPUScheduler.fairShare(processes, config.cfsTargetLatency, config.cfsMinGranularity, config.contextSwitch, metrics);
+            case EDF: case RM: return runEventDriven(processes, config);
+            default: return CPUScheduler.agScheduling(processes, metrics);
+        }
+    }
+
+    // Event-driven engine from EventDrivenScheduler, same results
+    public SchedulerResult runEventDriven(List<Process> processes, SchedulerConfig config) {
+        switch (this) {
+            case SJF: return EventDrivenScheduler.preemptiveSJF(processes, config.contextSwitch);
+            case RR: return EventDrivenScheduler.roundRobin(processes, config.rrQuantum, config.contextSwitch);
+            case PRIORITY: return EventDrivenScheduler.priorityPreemptive(processes, config.contextSwitch, config.agingInterval);
+            case MLFQ: return EventDrivenScheduler.mlfq(processes, config.mlfqQuanta, config.mlfqBoostInterval, config.contextSwitch);
+            case CFS: return EventDrivenScheduler.fairShare(processes, config.cfsTargetLatency, config.cfsMinGranularity, config.contextSwitch);
+            case EDF: return EventDrivenScheduler.edf(processes, config.contextSwitch);
+            case RM: return EventDrivenScheduler.rateMonotonic(processes, config.contextSwitch);
+            default: return EventDrivenScheduler.agScheduling(processes);
+        }
+    }
+
+    public StreamingScheduler streaming(SchedulerConfig config, ScheduleListener listener) {
+        switch (this) {
+            case SJF: return StreamingScheduler.preemptiveSJF(config.contextSwitch, listener);
+            case RR: return StreamingScheduler.roundRobin(config.rrQuantum, config.contextSwitch, listener);
+            case PRIORITY: return StreamingScheduler.priorityPreemptive(config.contextSwitch, config.agingInterval, listener);
+            case MLFQ: return StreamingScheduler.mlfq(config.mlfqQuanta, config.mlfqBoostInterval, config.contextSwitch, listener);
+            case CFS: return StreamingScheduler.fairShare(config.cfsTargetLatency, config.cfsMinGranularity, config.contextSwitch, listener);
+            case EDF: return StreamingScheduler.edf(config.contextSwitch, listener);
+            case RM: return StreamingScheduler.rateMonotonic(config.contextSwitch, listener);
+            default: return StreamingScheduler.agScheduling(listener);
+        }
+    }
+
+    public static Algorithm parse(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "SJF": return SJF;
+            case "RR": case "ROUNDROBIN": return RR;
+            case "PRIORITY": case "PRIO": return PRIORITY;
+            case "AG": return AG;
+            case "MLFQ": return MLFQ;
+            case "CFS": case "FAIR": return CFS;
+            case "EDF": return EDF;
+            case "RM": case "RATEMONOTONIC": return RM;
+            default: throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs many independent scheduler jobs (workload x algorithm x config) on a
+ * fork-join pool. Every job works on its own copy of the workload and writes
+ * only its own result slot, so there is no shared mutable state; results come
+ * back in job order.
+ */
+public class BatchRunner {
+
+    public static class Job {
+        public final String workload;
+        public final List<Process> processes;
+        public final Algorithm algorithm;
+        public final SchedulerConfig config;
+        public final boolean reference;
+
+        public Job(String workload, List<Process> processes, Algorithm algorithm, SchedulerConfig config, boolean reference) {
+            this.workload = workload;
+            this.processes = processes;
+            this.algorithm = algorithm;
+            this.config = config;
+            this.reference = reference;
+        }
+
+        SchedulerResult run() {
+            return reference ? algorithm.run(processes, config) : algorithm.runEventDriven(processes, config);
+        }
+
+        @Override
+        public String toString() {
+            return workload + " [" + algorithm + ", " + config + "]";
+        }
+    }
+
+    public static class JobResult {
+        public final Job job;
+        public final SchedulerResult result; // null if the job failed
+        public final Throwable error;
+        public final long nanos;
+
+        JobResult(Job job, SchedulerResult result, Throwable error, long nanos) {
+            this.job = job;
+            this.result = result;
+            this.error = error;
+            this.nanos = nanos;
+        }
+    }
+
+    // Below this many jobs a task runs them itself instead of splitting further
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final ForkJoinPool pool;
+
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRunner(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public List<JobResult> runAll(List<Job> jobs) {
+        JobResult[] results = new JobResult[jobs.size()];
+        pool.invoke(new RunRange(jobs, results, 0, jobs.size()));
+        return Arrays.asList(results);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Every combination of workload, algorithm and the parameters that
+     * algorithm actually reads: SJF varies contextSwitch, RR rrQuantum and
+     * contextSwitch, Priority contextSwitch and agingInterval, AG none.
+     */
+    public static List<Job> sweep(Map<String, List<Process>> workloads, List<Algorithm> algorithms,
+                                  int[] rrQuanta, int[] contextSwitches, int[] agingIntervals, boolean reference) {
+        List<Job> jobs = new ArrayList<>();
+        for (Map.Entry<String, List<Process>> w : workloads.entrySet()) {
+            for (Algorithm algorithm : algorithms) {
+                int[] quanta = algorithm == Algorithm.RR ? rrQuanta : new int[]{rrQuanta[0]};
+                int[] switches = algorithm == Algorithm.AG ? new int[]{contextSwitches[0]} : contextSwitches;
+                int[] agings = algorithm == Algorithm.PRIORITY ? agingIntervals : new int[]{agingIntervals[0]};
+                for (int q : quanta) {
+                    for (int cs : switches) {
+                        for (int aging : agings) {
+                            jobs.add(new Job(w.getKey(), w.getValue(), algorithm, new SchedulerConfig(q, cs, aging), reference));
+                        }
+                    }
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private static class RunRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Job> jobs;
+        private final JobResult[] results;
+        private final int from, to;
+
+        RunRange(List<Job> jobs, JobResult[] results, int from, int to) {
+            this.jobs = jobs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) results[i] = runOne(jobs.get(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RunRange(jobs, results, from, mid), new RunRange(jobs, results, mid, to));
+        }
+    }
+
+    private static JobResult runOne(Job job) {
+        long start = System.nanoTime();
+        try {
+            SchedulerResult result = job.run();
+            return new JobResult(job, result, null, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            return new JobResult(job, null, e, System.nanoTime() - start);
+        }
+    }
+}
@@ -3,51 +3,99 @@ import java.util.*;
 public class CPUScheduler {
 
     public static SchedulerResult preemptiveSJF(List<Process> input, int contextSwitch) {
+        return preemptiveSJF(input, contextSwitch, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult preemptiveSJF(List<Process> input, int contextSwitch, MetricsListener metrics) {
         List<Process> processes = copyList(input);
         SchedulerResult result = new SchedulerResult();
-        int time = 0, completed = 0;
+        int time = 0, completed = 0, slice = 0;
         Process last = null;
 
         while (completed < processes.size()) {
             Process cur = null;
-            int minRemaining = Integer.MAX_VALUE;
+            int minRemaining = Integer.MAX_VALUE, ready = 0;
             for (Process p : processes) {
-                if (p.arrivalTime <= time && p.remainingTime > 0 && p.remainingTime < minRemaining) {
-                    minRemaining = p.remainingTime;
-                    cur = p;
+                if (p.arrivalTime <= time && p.remainingTime > 0) {
+                    ready++;
+                    if (p.remainingTime < minRemaining) {
+                        minRemaining = p.remainingTime;
+                        cur = p;
+                    }
                 }
             }
             if (cur == null) {
+                result.timeline.append(null, time, time + 1, Timeline.Reason.IDLE);
+                if (metrics != null) metrics.onIdle(1);
                 time++;
                 continue;
             }
+            if (metrics != null) metrics.onReadyQueue(ready - 1);
 
-            if (last != null && last != cur) time += contextSwitch;
+            if (last != null && last != cur) {
+                if (metrics != null) {
+                    if (last.remainingTime > 0) {
+                        metrics.onSlice(slice);
+                        metrics.onPreemption(MetricsListener.Preemption.SHORTER_JOB, time);
+                    }
+                    metrics.onContextSwitch(time, contextSwitch);
+                }
+                slice = 0;
+                result.timeline.append(cur.name, time, time + contextSwitch, Timeline.Reason.CONTEXT_SWITCH);
+                time += contextSwitch;
+            }
 
             // Only add to execution order when switching processes
             if (last != cur) {
                 result.executionOrder.add(cur.name);
+                started(cur, time, metrics);
             }
             
+            result.timeline.append(cur.name, time, time + 1, Timeline.Reason.RUN);
             cur.remainingTime--;
             time++;
+            slice++;
 
             if (cur.remainingTime == 0) {
                 cur.completionTime = time;
                 completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
             }
             last = cur;
         }
 
         calculateTimes(processes, result);
+        reportCompletions(processes, metrics);
         return result;
     }
 
+    // Preemptive earliest deadline first on Process.absoluteDeadline; jobs
+    // without a deadline only run when no deadline job waits. Periodic tasks
+    // are expanded into jobs with PeriodicTasks. Only exists event-driven,
+    // see EDFPolicy.
+    public static SchedulerResult edf(List<Process> input, int contextSwitch) {
+        return EventDrivenScheduler.edf(input, contextSwitch);
+    }
+
+    // Preemptive rate-monotonic: the shorter the period of a job's task, the
+    // higher its fixed priority; jobs that are not periodic come last. Only
+    // exists event-driven, see RateMonotonicPolicy.
+    public static SchedulerResult rateMonotonic(List<Process> input, int contextSwitch) {
+        return EventDrivenScheduler.rateMonotonic(input, contextSwitch);
+    }
+
     public static SchedulerResult roundRobin(List<Process> input, int quantum, int contextSwitch) {
+        return roundRobin(input, quantum, contextSwitch, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult roundRobin(List<Process> input, int quantum, int contextSwitch, MetricsListener metrics) {
         List<Process> processes = copyList(input);
         SchedulerResult result = new SchedulerResult();
         Queue<Process> queue = new LinkedList<>();
-        int time = 0, completed = 0;
+        int time = 0, completed = 0, slice = 0;
         int n = processes.size();
         processes.sort(Comparator.comparingInt(p -> p.arrivalTime));
         
@@ -64,6 +112,8 @@ public class CPUScheduler {
             if (queue.isEmpty()) {
                 // No process ready, advance time to next arrival
                 if (idx < n) {
+                    result.timeline.append(null, time, processes.get(idx).arrivalTime, Timeline.Reason.IDLE);
+                    if (metrics != null) metrics.onIdle(processes.get(idx).arrivalTime - time);
                     time = processes.get(idx).arrivalTime;
                     while (idx < n && processes.get(idx).arrivalTime <= time) {
                         queue.add(processes.get(idx));
@@ -74,17 +124,30 @@ public class CPUScheduler {
             }
             
             Process cur = queue.poll();
+            if (metrics != null) metrics.onReadyQueue(queue.size());
             
             // Context switch if switching to a different process
             if (last != null && last != cur) {
+                if (metrics != null) {
+                    if (last.remainingTime > 0) {
+                        metrics.onSlice(slice);
+                        metrics.onPreemption(MetricsListener.Preemption.QUANTUM_EXPIRED, time);
+                    }
+                    metrics.onContextSwitch(time, contextSwitch);
+                }
+                slice = 0;
+                result.timeline.append(cur.name, time, time + contextSwitch, Timeline.Reason.CONTEXT_SWITCH);
                 time += contextSwitch;
             }
             
             // Execute for min(quantum, remaining time)
             int execTime = Math.min(quantum, cur.remainingTime);
             result.executionOrder.add(cur.name);
+            started(cur, time, metrics);
+            result.timeline.append(cur.name, time, time + execTime, Timeline.Reason.RUN);
             cur.remainingTime -= execTime;
             time += execTime;
+            slice += execTime;
             
             // Add newly arrived processes to queue
             while (idx < n && processes.get(idx).arrivalTime <= time) {
@@ -95,6 +158,8 @@ public class CPUScheduler {
             if (cur.remainingTime == 0) {
                 cur.completionTime = time;
                 completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
             } else {
                 // Process still has work, add back to queue
                 queue.add(cur);
@@ -104,19 +169,33 @@ public class CPUScheduler {
         }
         
         calculateTimes(processes, result);
+        reportCompletions(processes, metrics);
         return result;
     }
 
     public static SchedulerResult priorityPreemptive(List<Process> input, int contextSwitch, int agingInterval) {
+        return priorityPreemptive(input, contextSwitch, agingInterval, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult priorityPreemptive(List<Process> input, int contextSwitch, int agingInterval,
+                                                     MetricsListener metrics) {
         List<Process> processes = copyList(input);
         SchedulerResult result = new SchedulerResult();
-        int time = 0, completed = 0;
+        int time = 0, completed = 0, slice = 0;
         Process last = null;
         
         // Track wait time for aging
         Map<Process, Integer> waitTime = new HashMap<>();
         for (Process p : processes) waitTime.put(p, 0);
 
+        // Priorities before aging, to tell aging preemptions apart
+        int[] basePriority = null;
+        if (metrics != null) {
+            basePriority = new int[processes.size()];
+            for (int i = 0; i < basePriority.length; i++) basePriority[i] = processes.get(i).priority;
+        }
+
         while (completed < processes.size()) {
             // Apply aging - decrease priority for waiting processes
             for (Process p : processes) {
@@ -125,36 +204,57 @@ public class CPUScheduler {
                     if (waitTime.get(p) >= agingInterval) {
                         p.priority--;
                         waitTime.put(p, 0);
+                        if (metrics != null) metrics.onAgingPromotion(time);
                     }
                 }
             }
 
             Process cur = null;
+            int curIndex = -1, ready = 0;
             int bestPriority = Integer.MAX_VALUE;
             int earliestArrival = Integer.MAX_VALUE;
-            for (Process p : processes) {
+            for (int i = 0; i < processes.size(); i++) {
+                Process p = processes.get(i);
                 if (p.arrivalTime <= time && p.remainingTime > 0) {
+                    ready++;
                     // Use arrival time as tie-breaker (FCFS)
                     if (p.priority < bestPriority || 
                         (p.priority == bestPriority && p.arrivalTime < earliestArrival)) {
                         bestPriority = p.priority;
                         earliestArrival = p.arrivalTime;
                         cur = p;
+                        curIndex = i;
                     }
                 }
             }
 
             if (cur == null) {
+                result.timeline.append(null, time, time + 1, Timeline.Reason.IDLE);
+                if (metrics != null) metrics.onIdle(1);
                 time++;
                 continue;
             }
+            if (metrics != null) metrics.onReadyQueue(ready - 1);
 
             // Handle Context Switch
             boolean switched = (last != null && last != cur);
             if (switched) {
+                if (metrics != null) {
+                    if (last.remainingTime > 0) {
+                        int base = basePriority[curIndex];
+                        boolean winsUnaged = base < last.priority || (base == last.priority && cur.arrivalTime < last.arrivalTime);
+                        metrics.onSlice(slice);
+                        metrics.onPreemption(winsUnaged ? MetricsListener.Preemption.HIGHER_PRIORITY
+                                : MetricsListener.Preemption.AGING, time);
+                    }
+                    metrics.onContextSwitch(time, contextSwitch);
+                }
+                slice = 0;
+
                 // Add context switch duration to time and wait times
                 int oldTime = time;
                 time += contextSwitch;
+                result.timeline.append(cur.name, oldTime, time, Timeline.Reason.CONTEXT_SWITCH);
                 
                 for (Process p : processes) {
                     if (p.remainingTime > 0) {
@@ -176,25 +276,271 @@ public class CPUScheduler {
                 result.executionOrder.add(cur.name);
             }
 
+            if (last != cur) started(cur, time, metrics);
+
             // Reset wait time for running process
             waitTime.put(cur, 0);
             
+            result.timeline.append(cur.name, time, time + 1, Timeline.Reason.RUN);
             cur.remainingTime--;
             time++;
+            slice++;
 
             if (cur.remainingTime == 0) {
                 cur.completionTime = time;
                 completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
             }
 
             last = cur;
         }
 
         calculateTimes(processes, result);
+        reportCompletions(processes, metrics);
+        return result;
+    }
+
+    // Multilevel feedback queue: quanta[i] is the quantum of level i, new
+    // arrivals start at level 0, a used up quantum moves a process one level
+    // down and every boostInterval ticks (0 for never) everything goes back
+    // to level 0. A process preempted by a higher level keeps what it used.
+    public static SchedulerResult mlfq(List<Process> input, int[] quanta, int boostInterval, int contextSwitch) {
+        return mlfq(input, quanta, boostInterval, contextSwitch, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult mlfq(List<Process> input, int[] quanta, int boostInterval, int contextSwitch,
+                                       MetricsListener metrics) {
+        if (quanta.length == 0) throw new IllegalArgumentException("MLFQ needs at least one level");
+        for (int q : quanta) if (q < 1) throw new IllegalArgumentException("MLFQ quanta must be positive");
+        List<Process> processes = copyList(input);
+        SchedulerResult result = new SchedulerResult();
+        List<Process> arrivals = new ArrayList<>(processes);
+        arrivals.sort(Comparator.comparingInt(p -> p.arrivalTime));
+        List<Deque<Process>> levels = new ArrayList<>();
+        for (int l = 0; l < quanta.length; l++) levels.add(new ArrayDeque<>());
+        // Level and ticks used at that level; missing means level 0 with nothing used
+        Map<Process, Integer> level = new HashMap<>(), used = new HashMap<>();
+        int time = 0, completed = 0, slice = 0, idx = 0, epoch = 0;
+        Process cur = null, last = null;
+
+        while (completed < processes.size()) {
+            epoch = boost(epoch, time, boostInterval, levels, level, used);
+            while (idx < arrivals.size() && arrivals.get(idx).arrivalTime <= time) levels.get(0).add(arrivals.get(idx++));
+
+            if (cur != null) {
+                int l = level.getOrDefault(cur, 0);
+                boolean expired = used.getOrDefault(cur, 0) >= quanta[l];
+                boolean higher = false;
+                for (int h = 0; h < l; h++) if (!levels.get(h).isEmpty()) higher = true;
+                if (expired || higher) {
+                    if (expired) {
+                        level.put(cur, Math.min(l + 1, quanta.length - 1));
+                        used.put(cur, 0);
+                    }
+                    if (metrics != null) {
+                        metrics.onSlice(slice);
+                        metrics.onPreemption(expired ? MetricsListener.Preemption.QUANTUM_EXPIRED
+                                : MetricsListener.Preemption.HIGHER_PRIORITY, time);
+                    }
+                    slice = 0;
+                    levels.get(level.getOrDefault(cur, 0)).add(cur);
+                    cur = null;
+                }
+            }
+
+            if (cur == null) {
+                for (Deque<Process> queue : levels) {
+                    if (!queue.isEmpty()) {
+                        cur = queue.poll();
+                        break;
+                    }
+                }
+                if (cur == null) {
+                    result.timeline.append(null, time, time + 1, Timeline.Reason.IDLE);
+                    if (metrics != null) metrics.onIdle(1);
+                    time++;
+                    continue;
+                }
+                if (last != null && last != cur) {
+                    if (metrics != null) metrics.onContextSwitch(time, contextSwitch);
+                    result.timeline.append(cur.name, time, time + contextSwitch, Timeline.Reason.CONTEXT_SWITCH);
+                    time += contextSwitch;
+                    // Arrivals during the switch wait for the next tick, boosts do not
+                    epoch = boost(epoch, time, boostInterval, levels, level, used);
+                }
+                if (last != cur) {
+                    result.executionOrder.add(cur.name);
+                    started(cur, time, metrics);
+                }
+                last = cur;
+            }
+            if (metrics != null) {
+                int ready = 0;
+                for (Deque<Process> queue : levels) ready += queue.size();
+                metrics.onReadyQueue(ready);
+            }
+
+            result.timeline.append(cur.name, time, time + 1, Timeline.Reason.RUN);
+            cur.remainingTime--;
+            used.put(cur, used.getOrDefault(cur, 0) + 1);
+            time++;
+            slice++;
+
+            if (cur.remainingTime == 0) {
+                cur.completionTime = time;
+                completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
+                cur = null;
+            }
+        }
+
+        calculateTimes(processes, result);
+        reportCompletions(processes, metrics);
+        return result;
+    }
+
+    // Boosts due by time: every level joins level 0 in level order and everybody, running or not, starts over
+    private static int boost(int epoch, int time, int boostInterval, List<Deque<Process>> levels,
+                             Map<Process, Integer> level, Map<Process, Integer> used) {
+        if (boostInterval <= 0 || time / boostInterval <= epoch) return epoch;
+        for (int l = 1; l < levels.size(); l++) {
+            levels.get(0).addAll(levels.get(l));
+            levels.get(l).clear();
+        }
+        level.clear();
+        used.clear();
+        return time / boostInterval;
+    }
+
+    // CFS-style fair share on virtual runtime, weighted by priority read as a
+    // nice value (FairSharePolicy.weight). Slices share targetLatency by
+    // weight, at least minGranularity. At the end of a slice the running
+    // process keeps the CPU unless someone waiting has less virtual runtime;
+    // before that it is preempted once someone is more than minGranularity
+    // nice-0 ticks behind. Arrivals start at the least virtual runtime seen.
+    // Virtual runtime is counted in 2^-32 / 1024 ticks, so each tick adds
+    // the same whole number for a given weight.
+    public static SchedulerResult fairShare(List<Process> input, int targetLatency, int minGranularity, int contextSwitch) {
+        return fairShare(input, targetLatency, minGranularity, contextSwitch, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult fairShare(List<Process> input, int targetLatency, int minGranularity, int contextSwitch,
+                                            MetricsListener metrics) {
+        if (targetLatency < 1 || minGranularity < 1) throw new IllegalArgumentException("CFS latency and granularity must be positive");
+        List<Process> processes = copyList(input);
+        SchedulerResult result = new SchedulerResult();
+        List<Process> arrivals = new ArrayList<>(processes);
+        arrivals.sort(Comparator.comparingInt(p -> p.arrivalTime));
+        Map<Process, Long> vruntime = new HashMap<>();
+        // Input position, the tie-breaker between equal virtual runtimes
+        Map<Process, Integer> position = new HashMap<>();
+        for (int i = 0; i < processes.size(); i++) position.put(processes.get(i), i);
+        List<Process> ready = new ArrayList<>();
+        long minVruntime = 0, granularity = minGranularity * ((1L << 32) / 1024);
+        int time = 0, completed = 0, slice = 0, idx = 0, sliceEnd = 0;
+        Process cur = null, last = null;
+
+        while (completed < processes.size()) {
+            while (idx < arrivals.size() && arrivals.get(idx).arrivalTime <= time) {
+                Process p = arrivals.get(idx++);
+                Process left = leftmost(ready, vruntime, position);
+                long floor = Long.MAX_VALUE;
+                if (cur != null) floor = vruntime.get(cur);
+                if (left != null) floor = Math.min(floor, vruntime.get(left));
+                if (floor != Long.MAX_VALUE) minVruntime = Math.max(minVruntime, floor);
+                vruntime.put(p, minVruntime);
+                ready.add(p);
+            }
+
+            if (cur != null) {
+                Process left = leftmost(ready, vruntime, position);
+                MetricsListener.Preemption cause = null;
+                if (time >= sliceEnd) {
+                    if (left != null && vruntime.get(left) < vruntime.get(cur)) cause = MetricsListener.Preemption.QUANTUM_EXPIRED;
+                    else sliceEnd = time + cfsSlice(cur, ready, targetLatency, minGranularity);
+                } else if (left != null && vruntime.get(left) + granularity < vruntime.get(cur)) {
+                    cause = MetricsListener.Preemption.FAIR_SHARE;
+                }
+                if (cause != null) {
+                    if (metrics != null) {
+                        metrics.onSlice(slice);
+                        metrics.onPreemption(cause, time);
+                    }
+                    slice = 0;
+                    ready.add(cur);
+                    cur = null;
+                }
+            }
+
+            if (cur == null) {
+                cur = leftmost(ready, vruntime, position);
+                if (cur == null) {
+                    result.timeline.append(null, time, time + 1, Timeline.Reason.IDLE);
+                    if (metrics != null) metrics.onIdle(1);
+                    time++;
+                    continue;
+                }
+                ready.remove(cur);
+                if (last != null && last != cur) {
+                    if (metrics != null) metrics.onContextSwitch(time, contextSwitch);
+                    result.timeline.append(cur.name, time, time + contextSwitch, Timeline.Reason.CONTEXT_SWITCH);
+                    time += contextSwitch;
+                }
+                if (last != cur) {
+                    result.executionOrder.add(cur.name);
+                    started(cur, time, metrics);
+                }
+                sliceEnd = time + cfsSlice(cur, ready, targetLatency, minGranularity);
+                last = cur;
+            }
+            if (metrics != null) metrics.onReadyQueue(ready.size());
+
+            result.timeline.append(cur.name, time, time + 1, Timeline.Reason.RUN);
+            cur.remainingTime--;
+            vruntime.put(cur, vruntime.get(cur) + (1L << 32) / FairSharePolicy.weight(cur));
+            time++;
+            slice++;
+
+            if (cur.remainingTime == 0) {
+                cur.completionTime = time;
+                completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
+                cur = null;
+            }
+        }
+
+        calculateTimes(processes, result);
+        reportCompletions(processes, metrics);
         return result;
     }
 
+    // Least virtual runtime, then input position; null if ready is empty
+    private static Process leftmost(List<Process> ready, Map<Process, Long> vruntime, Map<Process, Integer> position) {
+        Process best = null;
+        for (Process p : ready) {
+            long v = vruntime.get(p), b = best == null ? 0 : vruntime.get(best);
+            if (best == null || v < b || (v == b && position.get(p) < position.get(best))) best = p;
+        }
+        return best;
+    }
+
+    private static int cfsSlice(Process p, List<Process> ready, int targetLatency, int minGranularity) {
+        long w = FairSharePolicy.weight(p), waiting = 0;
+        for (Process q : ready) waiting += FairSharePolicy.weight(q);
+        return (int) Math.max(minGranularity, targetLatency * w / (waiting + w));
+    }
+
     public static SchedulerResult agScheduling(List<Process> input) {
+        return agScheduling(input, null);
+    }
+
+    // metrics may be null
+    public static SchedulerResult agScheduling(List<Process> input, MetricsListener metrics) {
         List<Process> processes = copyList(input);
         SchedulerResult result = new SchedulerResult();
         processes.sort(Comparator.comparingInt(p -> p.arrivalTime));
@@ -203,8 +549,9 @@ public class CPUScheduler {
         List<Process> readyQueue = new ArrayList<>();
         int time = 0;
         int completed = 0;
-        int idx = 0;
+        int idx = 0, slice = 0;
         Process lastProcess = null;
+        MetricsListener.Preemption lastCause = null; // why lastProcess left the CPU, if it had work left
 
         // Add processes that arrive at time 0
         while (idx < n && processes.get(idx).arrivalTime <= time) {
@@ -215,6 +562,8 @@ public class CPUScheduler {
         while (completed < n) {
             if (readyQueue.isEmpty()) {
                 if (idx < n) {
+                    result.timeline.append(null, time, processes.get(idx).arrivalTime, Timeline.Reason.IDLE);
+                    if (metrics != null) metrics.onIdle(processes.get(idx).arrivalTime - time);
                     time = processes.get(idx).arrivalTime;
                     while (idx < n && processes.get(idx).arrivalTime <= time) {
                         readyQueue.add(processes.get(idx));
@@ -226,10 +575,22 @@ public class CPUScheduler {
 
             // Get first process from queue (FCFS ordering)
             Process current = readyQueue.remove(0);
+            if (metrics != null) metrics.onReadyQueue(readyQueue.size());
             
             // Only add to execution order when switching to different process
             if (lastProcess != current) {
+                if (lastProcess != null) {
+                    if (metrics != null) {
+                        if (lastProcess.remainingTime > 0) {
+                            metrics.onSlice(slice);
+                            metrics.onPreemption(lastCause, time);
+                        }
+                        metrics.onContextSwitch(time, 0);
+                    }
+                    slice = 0;
+                }
                 result.executionOrder.add(current.name);
+                started(current, time, metrics);
             }
 
             int originalQuantum = current.quantum;
@@ -298,9 +659,11 @@ public class CPUScheduler {
                 }
                 
                 // Execute 1 time unit
+                result.timeline.append(current.name, time, time + 1, Timeline.Reason.RUN);
                 current.remainingTime--;
                 usedQuantum++;
                 time++;
+                slice++;
             }
 
             // Handle completion or requeue
@@ -308,7 +671,12 @@ public class CPUScheduler {
                 current.completionTime = time;
                 current.quantumHistory.add(0);
                 completed++;
+                if (metrics != null) metrics.onSlice(slice);
+                slice = 0;
             } else {
+                lastCause = !preempted ? MetricsListener.Preemption.QUANTUM_EXPIRED
+                        : preemptPhase == 2 ? MetricsListener.Preemption.AG_PRIORITY
+                        : MetricsListener.Preemption.AG_SHORTER_JOB;
                 // Calculate quantum update based on scenario
                 int remainingQ = originalQuantum - usedQuantum;
                 
@@ -340,27 +708,43 @@ public class CPUScheduler {
 
         calculateTimes(processes, result);
         for (Process p : processes) result.quantumHistory.put(p.name, p.quantumHistory);
+        reportCompletions(processes, metrics);
         return result;
     }
 
-    private static List<Process> copyList(List<Process> input) {
+    private static void started(Process p, int time, MetricsListener metrics) {
+        if (p.startTime >= 0) return;
+        p.startTime = time;
+        if (metrics != null) metrics.onResponse(time - p.arrivalTime);
+    }
+
+    private static void reportCompletions(List<Process> processes, MetricsListener metrics) {
+        if (metrics == null) return;
+        for (Process p : processes) metrics.onCompletion(p.waitingTime, p.turnaroundTime);
+    }
+
+    static List<Process> copyList(List<Process> input) {
         List<Process> list = new ArrayList<>();
         for (Process p : input) list.add(p.copy());
         return list;
     }
 
-    private static void calculateTimes(List<Process> processes, SchedulerResult r) {
-        double w = 0, t = 0;
+    static void calculateTimes(List<Process> processes, SchedulerResult r) {
+        double w = 0, t = 0, rt = 0;
         for (Process p : processes) {
             p.turnaroundTime = p.completionTime - p.arrivalTime;
             p.waitingTime = p.turnaroundTime - p.burstTime;
             r.waitingTimes.put(p.name, p.waitingTime);
             r.turnaroundTimes.put(p.name, p.turnaroundTime);
+            r.responseTimes.put(p.name, p.startTime - p.arrivalTime);
             w += p.waitingTime;
             t += p.turnaroundTime;
+            rt += p.startTime - p.arrivalTime;
+            r.addLateness(p.name, p.completionTime, p.absoluteDeadline());
         }
         r.averageWaitingTime = w / processes.size();
         r.averageTurnaroundTime = t / processes.size();
+        r.averageResponseTime = rt / processes.size();
     }
 
 }
@@ -0,0 +1,327 @@
+import java.util.*;
+
+/**
+ * Columnar form of {@link SchedulerResult}. Processes are interned to dense
+ * int ids in the order they are first seen, and the execution order, the
+ * per-process metrics and the quantum histories live in growable primitive
+ * arrays instead of HashMaps of boxed values. The map-based views of
+ * SchedulerResult are available as lazy adapters over the same arrays.
+ */
+public class CompactResult {
+
+    private int processCount;
+    private String[] names = new String[16];
+    private int[] arrival = new int[16], burst = new int[16], start = new int[16], completion = new int[16];
+    // Process.absoluteDeadline, Long.MAX_VALUE without a deadline
+    private long[] deadline = new long[16];
+
+    // Execution order: one entry per dispatch
+    private int segmentCount;
+    private int[] segmentProcess = new int[16];
+    private long[] segmentStart = new long[16];
+
+    // Quantum histories, chained per process through a shared pool
+    private int[] historyHead = new int[16], historyTail = new int[16], historyLength = new int[16];
+    private int historyCount;
+    private int[] historyValue = new int[16], historyNext = new int[16];
+
+    private final Timeline timeline = new Timeline();
+
+    private long totalWaiting, totalTurnaround, totalResponse;
+    private int completedCount;
+
+    private Map<String, Integer> idsByName;
+
+    // Runs input through the event-driven engine of algorithm and collects the result in columnar form
+    public static CompactResult run(Algorithm algorithm, List<Process> input, SchedulerConfig config) {
+        Collector collector = new Collector(algorithm == Algorithm.AG);
+        StreamingScheduler scheduler = algorithm.streaming(config, collector).keepQuantumHistory(false);
+        Process[] p = input.toArray(new Process[0]);
+        for (int id : EventDrivenScheduler.sortedByArrival(p)) scheduler.submit(p[id].copy(), id);
+        scheduler.finish();
+        return collector.result();
+    }
+
+    /**
+     * ScheduleListener that fills a CompactResult. Only processes still in the
+     * system are kept in its lookup table, so it never holds the whole trace.
+     */
+    public static class Collector implements ScheduleListener {
+        private final CompactResult result = new CompactResult();
+        private final IdentityHashMap<Process, Integer> inFlight = new IdentityHashMap<>();
+        private final boolean quantumHistory;
+
+        public Collector(boolean quantumHistory) {
+            this.quantumHistory = quantumHistory;
+        }
+
+        public CompactResult result() { return result; }
+
+        @Override
+        public void onDispatch(Process process, int time) {
+            int id = idOf(process);
+            result.addSegment(id, time);
+            if (result.start[id] < 0) result.start[id] = time;
+        }
+
+        @Override
+        public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+            result.timeline.append(process == null ? null : process.name, start, end, reason);
+        }
+
+        @Override
+        public void onQuantumUpdate(Process process, int quantum) {
+            if (quantumHistory) result.addHistory(idOf(process), quantum);
+        }
+
+        @Override
+        public void onCompletion(Process process) {
+            Integer id = inFlight.remove(process);
+            int pid = id != null ? id : result.intern(process, quantumHistory);
+            result.complete(pid, process.completionTime);
+        }
+
+        private int idOf(Process process) {
+            Integer id = inFlight.get(process);
+            if (id == null) {
+                id = result.intern(process, quantumHistory);
+                inFlight.put(process, id);
+            }
+            return id;
+        }
+    }
+
+    int intern(Process p, boolean quantumHistory) {
+        int id = processCount++;
+        if (id == names.length) {
+            int capacity = id * 2;
+            names = Arrays.copyOf(names, capacity);
+            arrival = Arrays.copyOf(arrival, capacity);
+            burst = Arrays.copyOf(burst, capacity);
+            start = Arrays.copyOf(start, capacity);
+            completion = Arrays.copyOf(completion, capacity);
+            deadline = Arrays.copyOf(deadline, capacity);
+            historyHead = Arrays.copyOf(historyHead, capacity);
+            historyTail = Arrays.copyOf(historyTail, capacity);
+            historyLength = Arrays.copyOf(historyLength, capacity);
+        }
+        names[id] = p.name;
+        arrival[id] = p.arrivalTime;
+        burst[id] = p.burstTime;
+        start[id] = p.startTime;
+        deadline[id] = p.absoluteDeadline();
+        historyHead[id] = -1;
+        historyLength[id] = 0;
+        if (quantumHistory) addHistory(id, p.quantumHistory.isEmpty() ? p.quantum : p.quantumHistory.get(0));
+        if (idsByName != null) idsByName.put(p.name, id);
+        return id;
+    }
+
+    void addSegment(int id, long start) {
+        if (segmentCount == segmentProcess.length) {
+            segmentProcess = Arrays.copyOf(segmentProcess, segmentCount * 2);
+            segmentStart = Arrays.copyOf(segmentStart, segmentCount * 2);
+        }
+        segmentProcess[segmentCount] = id;
+        segmentStart[segmentCount++] = start;
+    }
+
+    void addHistory(int id, int quantum) {
+        if (historyCount == historyValue.length) {
+            historyValue = Arrays.copyOf(historyValue, historyCount * 2);
+            historyNext = Arrays.copyOf(historyNext, historyCount * 2);
+        }
+        int entry = historyCount++;
+        historyValue[entry] = quantum;
+        historyNext[entry] = -1;
+        if (historyHead[id] < 0) historyHead[id] = entry; else historyNext[historyTail[id]] = entry;
+        historyTail[id] = entry;
+        historyLength[id]++;
+    }
+
+    void complete(int id, int completionTime) {
+        completion[id] = completionTime;
+        totalTurnaround += completionTime - arrival[id];
+        totalWaiting += completionTime - arrival[id] - burst[id];
+        totalResponse += start[id] - arrival[id];
+        completedCount++;
+    }
+
+    public int processCount() { return processCount; }
+
+    public String name(int id) { return names[id]; }
+
+    // Dense id of the process with this name, or -1
+    public int id(String name) {
+        Integer id = index().get(name);
+        return id == null ? -1 : id;
+    }
+
+    public int arrivalTime(int id) { return arrival[id]; }
+
+    public int burstTime(int id) { return burst[id]; }
+
+    public int startTime(int id) { return start[id]; }
+
+    public int completionTime(int id) { return completion[id]; }
+
+    public int turnaroundTime(int id) { return completion[id] - arrival[id]; }
+
+    public int waitingTime(int id) { return completion[id] - arrival[id] - burst[id]; }
+
+    public int responseTime(int id) { return start[id] - arrival[id]; }
+
+    public long absoluteDeadline(int id) { return deadline[id]; }
+
+    public int segmentCount() { return segmentCount; }
+
+    public int segmentProcess(int index) { return segmentProcess[index]; }
+
+    public long segmentStart(int index) { return segmentStart[index]; }
+
+    public Timeline timeline() { return timeline; }
+
+    public int[] quantumHistory(int id) {
+        int[] values = new int[historyLength[id]];
+        for (int e = historyHead[id], i = 0; e >= 0; e = historyNext[e]) values[i++] = historyValue[e];
+        return values;
+    }
+
+    public double averageWaitingTime() { return completedCount == 0 ? 0 : (double) totalWaiting / completedCount; }
+
+    public double averageTurnaroundTime() { return completedCount == 0 ? 0 : (double) totalTurnaround / completedCount; }
+
+    public double averageResponseTime() { return completedCount == 0 ? 0 : (double) totalResponse / completedCount; }
+
+    public List<String> executionOrder() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                Objects.checkIndex(index, segmentCount);
+                return names[segmentProcess[index]];
+            }
+
+            @Override
+            public int size() { return segmentCount; }
+        };
+    }
+
+    public Map<String, Integer> waitingTimes() {
+        return new MetricView<Integer>() {
+            @Override
+            Integer value(int id) { return waitingTime(id); }
+        };
+    }
+
+    public Map<String, Integer> turnaroundTimes() {
+        return new MetricView<Integer>() {
+            @Override
+            Integer value(int id) { return turnaroundTime(id); }
+        };
+    }
+
+    public Map<String, Integer> responseTimes() {
+        return new MetricView<Integer>() {
+            @Override
+            Integer value(int id) { return responseTime(id); }
+        };
+    }
+
+    public Map<String, List<Integer>> quantumHistory() {
+        return new MetricView<List<Integer>>() {
+            @Override
+            List<Integer> value(int id) {
+                int[] values = CompactResult.this.quantumHistory(id);
+                return new AbstractList<Integer>() {
+                    @Override
+                    public Integer get(int index) { return values[index]; }
+
+                    @Override
+                    public int size() { return values.length; }
+                };
+            }
+
+            @Override
+            boolean present(int id) { return historyLength[id] > 0; }
+        };
+    }
+
+    // SchedulerResult whose collections are views over this result, for code written against the maps;
+    // lateness is filled in eagerly for the processes with a deadline
+    public SchedulerResult toSchedulerResult() {
+        SchedulerResult r = new SchedulerResult();
+        r.executionOrder = executionOrder();
+        r.waitingTimes = waitingTimes();
+        r.turnaroundTimes = turnaroundTimes();
+        r.responseTimes = responseTimes();
+        r.quantumHistory = quantumHistory();
+        r.timeline = timeline;
+        for (int id = 0; id < processCount; id++) r.addLateness(names[id], completion[id], deadline[id]);
+        r.averageWaitingTime = averageWaitingTime();
+        r.averageTurnaroundTime = averageTurnaroundTime();
+        r.averageResponseTime = averageResponseTime();
+        return r;
+    }
+
+    private Map<String, Integer> index() {
+        if (idsByName == null) {
+            idsByName = new HashMap<>(processCount * 2);
+            for (int id = 0; id < processCount; id++) idsByName.put(names[id], id);
+        }
+        return idsByName;
+    }
+
+    // Read-only name -> value map; values are computed from the arrays on access
+    private abstract class MetricView<V> extends AbstractMap<String, V> {
+        abstract V value(int id);
+
+        boolean present(int id) { return true; }
+
+        @Override
+        public V get(Object key) {
+            Integer id = key instanceof String ? index().get(key) : null;
+            return id != null && present(id) ? value(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer id = key instanceof String ? index().get(key) : null;
+            return id != null && present(id);
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<Entry<String, V>>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<Entry<String, V>>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < processCount && !present(from)) from++;
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() { return next < processCount; }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int id = next;
+                            next = advance(next + 1);
+                            return new SimpleImmutableEntry<>(names[id], value(id));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int id = 0; id < processCount; id++) if (present(id)) size++;
+                    return size;
+                }
+            };
+        }
+    }
+}
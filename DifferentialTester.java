@@ -0,0 +1,389 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Property-based differential tester. Random workloads go through the
+ * tick-based reference ({@link Algorithm#run}) and a candidate engine, and
+ * the results must agree on execution order, timeline, per-process waiting,
+ * turnaround and response times, AG quantum history and lateness. EDF and
+ * RM only exist event-driven, so the other engines are checked against
+ * {@link Algorithm#runEventDriven} for them. Cases are spread over all
+ * cores; case i of a seed is always the same workload, so a run can be
+ * repeated exactly. A mismatch is shrunk to a minimal failing case, which
+ * is printed as a test-case JSON file. Before the engines, WorkloadReader
+ * is checked on escapes that straddle the end of its read buffer.
+ *
+ * Usage: java DifferentialTester [--cases 1000000] [--algorithms sjf,rr,priority,ag,mlfq,cfs,edf,rm]
+ *        [--engines event,compact,whatif,session] [--max-processes 10] [--seed 1] [--threads N]
+ *        [--max-failures 3]
+ */
+public class DifferentialTester {
+
+    @FunctionalInterface
+    public interface Candidate {
+        SchedulerResult run(Algorithm algorithm, List<Process> processes, SchedulerConfig config);
+    }
+
+    // Engines that must match the reference
+    public static final Map<String, Candidate> CANDIDATES = new LinkedHashMap<>();
+    static {
+        CANDIDATES.put("event", Algorithm::runEventDriven);
+        CANDIDATES.put("compact", (a, processes, config) -> CompactResult.run(a, processes, config).toSchedulerResult());
+        // The baseline is the workload with one field of one process changed; the what-if puts the original
+        // process back, so it must match a fresh run of the workload. The change is a function of the case.
+        CANDIDATES.put("whatif", (a, processes, config) -> {
+            long seed = processes.size();
+            for (Process p : processes) {
+                seed = seed * 31 + p.arrivalTime;
+                seed = seed * 31 + p.burstTime;
+                seed = seed * 31 + p.priority;
+                seed = seed * 31 + p.quantum;
+                seed = seed * 31 + p.deadline;
+                seed = seed * 31 + p.period;
+            }
+            SplittableRandom r = new SplittableRandom(seed);
+            int i = r.nextInt(processes.size());
+            Process original = processes.get(i);
+            int arrival = original.arrivalTime, burst = original.burstTime, priority = original.priority, quantum = original.quantum;
+            int deadline = original.deadline, period = original.period;
+            switch (r.nextInt(6)) {
+                case 0: arrival = r.nextInt(arrival + 10); break;
+                case 1: burst = 1 + r.nextInt(2 * burst + 4); break;
+                case 2: priority += r.nextInt(7) - 3; break;
+                case 3: quantum = 1 + r.nextInt(8); break;
+                case 4: deadline = r.nextBoolean() ? 0 : 1 + r.nextInt(2 * burst + 4); break;
+                default: period = r.nextBoolean() ? 0 : 1 + r.nextInt(3 * burst + 4); break;
+            }
+            Process changed = new Process(original.name, arrival, burst, priority, quantum);
+            changed.deadline = deadline;
+            changed.period = period;
+            List<Process> baseline = new ArrayList<>(processes);
+            baseline.set(i, changed);
+            return new WhatIfSimulator(a, baseline, config, 1 + r.nextInt(3)).whatIf(i, original.copy());
+        });
+        // One session per thread, reused for every case it checks
+        ThreadLocal<SchedulerSession> sessions = ThreadLocal.withInitial(SchedulerSession::new);
+        CANDIDATES.put("session", (a, processes, config) -> sessions.get().load(processes).run(a, config).toSchedulerResult());
+    }
+
+    public static class Case {
+        public final long index;
+        public final List<Process> processes;
+        public final SchedulerConfig config;
+
+        public Case(long index, List<Process> processes, SchedulerConfig config) {
+            this.index = index;
+            this.processes = processes;
+            this.config = config;
+        }
+
+        // The case in the test-case schema, readable by WorkloadReader
+        public String toJson() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"input\": {\"contextSwitch\": ").append(config.contextSwitch)
+              .append(", \"rrQuantum\": ").append(config.rrQuantum)
+              .append(", \"agingInterval\": ").append(config.agingInterval)
+              .append(", \"mlfqQuanta\": ").append(Arrays.toString(config.mlfqQuanta))
+              .append(", \"mlfqBoostInterval\": ").append(config.mlfqBoostInterval)
+              .append(", \"cfsTargetLatency\": ").append(config.cfsTargetLatency)
+              .append(", \"cfsMinGranularity\": ").append(config.cfsMinGranularity)
+              .append(", \"processes\": [");
+            for (int i = 0; i < processes.size(); i++) {
+                Process p = processes.get(i);
+                sb.append(i == 0 ? "\n  " : ",\n  ")
+                  .append("{\"name\": \"").append(p.name).append("\", \"arrival\": ").append(p.arrivalTime)
+                  .append(", \"burst\": ").append(p.burstTime).append(", \"priority\": ").append(p.priority)
+                  .append(", \"quantum\": ").append(p.quantum);
+                if (p.deadline != 0) sb.append(", \"deadline\": ").append(p.deadline);
+                if (p.period != 0) sb.append(", \"period\": ").append(p.period);
+                sb.append('}');
+            }
+            return sb.append("\n]}}").toString();
+        }
+    }
+
+    public static class Mismatch {
+        public final Algorithm algorithm;
+        public final String engine;
+        public final Case original;
+        public final Case minimal;
+        public final String difference; // for the minimal case
+
+        Mismatch(Algorithm algorithm, String engine, Case original, Case minimal, String difference) {
+            this.algorithm = algorithm;
+            this.engine = engine;
+            this.original = original;
+            this.minimal = minimal;
+            this.difference = difference;
+        }
+
+        @Override
+        public String toString() {
+            return algorithm + " / " + engine + ": case " + original.index + " (" + original.processes.size()
+                    + " processes) shrunk to " + minimal.processes.size() + "\n" + difference + "\n" + minimal.toJson();
+        }
+    }
+
+    /**
+     * Case index of seed. Small workloads with clustered arrivals, short and
+     * long bursts, repeated and negative priorities and small settings, so
+     * ties and edge cases come up often.
+     */
+    public static Case generate(long seed, long index, int maxProcesses) {
+        SplittableRandom r = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        int n = 1 + r.nextInt(maxProcesses);
+        int spread = r.nextBoolean() ? 1 + r.nextInt(8) : 1 + r.nextInt(20 * n);
+        int longest = r.nextBoolean() ? 4 : 25;
+        int priorities = r.nextBoolean() ? 3 : 10;
+        List<Process> processes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            processes.add(new Process("P" + (i + 1), r.nextInt(spread), 1 + r.nextInt(longest),
+                    r.nextInt(priorities) - (r.nextInt(4) == 0 ? 3 : 0), 1 + r.nextInt(8)));
+        }
+        SchedulerConfig config = new SchedulerConfig(1 + r.nextInt(5), r.nextInt(4), r.nextInt(8) - 1);
+        // Drawn last so the cases of the other algorithms stay what they were
+        config.mlfqQuanta = new int[1 + r.nextInt(4)];
+        for (int l = 0; l < config.mlfqQuanta.length; l++) config.mlfqQuanta[l] = 1 + r.nextInt(6);
+        config.mlfqBoostInterval = r.nextInt(4) == 0 ? 0 : 1 + r.nextInt(40);
+        config.cfsTargetLatency = 1 + r.nextInt(24);
+        config.cfsMinGranularity = 1 + r.nextInt(4);
+        // Deadlines and periods for EDF and RM, also drawn after everything else; a third of the processes have neither
+        for (Process p : processes) {
+            if (r.nextInt(3) == 0) continue;
+            if (r.nextBoolean()) p.deadline = 1 + r.nextInt(2 * longest);
+            if (r.nextBoolean()) p.period = 1 + r.nextInt(3 * longest);
+        }
+        return new Case(index, processes, config);
+    }
+
+    // null when the results agree, otherwise the first difference
+    public static String compare(SchedulerResult expected, SchedulerResult actual) {
+        if (!expected.executionOrder.equals(actual.executionOrder)) {
+            return "executionOrder\n  expected " + expected.executionOrder + "\n  actual   " + actual.executionOrder;
+        }
+        if (!expected.timeline.equals(actual.timeline)) {
+            return "timeline\n  expected " + expected.timeline + "\n  actual   " + actual.timeline;
+        }
+        String d = compareMaps("waitingTime", expected.waitingTimes, actual.waitingTimes);
+        if (d == null) d = compareMaps("turnaroundTime", expected.turnaroundTimes, actual.turnaroundTimes);
+        if (d == null) d = compareMaps("responseTime", expected.responseTimes, actual.responseTimes);
+        if (d == null) d = compareMaps("quantumHistory", expected.quantumHistory, actual.quantumHistory);
+        if (d == null) d = compareMaps("lateness", expected.lateness, actual.lateness);
+        if (d != null) return d;
+        if (expected.deadlineMisses != actual.deadlineMisses || expected.maxLateness != actual.maxLateness) {
+            return "deadlineMisses / maxLateness\n  expected " + expected.deadlineMisses + " / " + expected.maxLateness
+                    + "\n  actual   " + actual.deadlineMisses + " / " + actual.maxLateness;
+        }
+        if (Math.abs(expected.averageWaitingTime - actual.averageWaitingTime) > 1e-9
+                || Math.abs(expected.averageTurnaroundTime - actual.averageTurnaroundTime) > 1e-9
+                || Math.abs(expected.averageResponseTime - actual.averageResponseTime) > 1e-9) {
+            return "averages\n  expected " + expected.averageWaitingTime + " / " + expected.averageTurnaroundTime + " / "
+                    + expected.averageResponseTime + "\n  actual   " + actual.averageWaitingTime + " / "
+                    + actual.averageTurnaroundTime + " / " + actual.averageResponseTime;
+        }
+        return null;
+    }
+
+    private static <V> String compareMaps(String what, Map<String, V> expected, Map<String, V> actual) {
+        if (expected.equals(actual)) return null;
+        for (String name : new TreeSet<>(expected.keySet())) {
+            if (!Objects.equals(expected.get(name), actual.get(name))) {
+                return what + " of " + name + ": expected " + expected.get(name) + ", actual " + actual.get(name);
+            }
+        }
+        return what + ": actual has extra processes " + actual.keySet();
+    }
+
+    // null when candidate agrees with the reference on c; an exception on either side is a difference too
+    public static String check(Algorithm algorithm, Candidate candidate, Case c) {
+        SchedulerResult expected;
+        try {
+            expected = algorithm.run(c.processes, c.config);
+        } catch (RuntimeException e) {
+            return "reference failed: " + e;
+        }
+        try {
+            return compare(expected, candidate.run(algorithm, c.processes, c.config));
+        } catch (RuntimeException e) {
+            return "candidate failed: " + e;
+        }
+    }
+
+    /**
+     * Greedily shrinks a failing case: drops processes, pulls arrivals,
+     * bursts, priorities and quanta towards small values and simplifies the
+     * settings, keeping every step that still fails, until nothing helps.
+     */
+    public static Case shrink(Algorithm algorithm, Candidate candidate, Case failing) {
+        Case best = failing;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (Case smaller : smallerCases(best)) {
+                if (check(algorithm, candidate, smaller) != null) {
+                    best = smaller;
+                    progress = true;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Candidates one step simpler than c, most aggressive first
+    private static List<Case> smallerCases(Case c) {
+        List<Case> out = new ArrayList<>();
+        List<Process> ps = c.processes;
+        for (int i = ps.size() - 1; i >= 0 && ps.size() > 1; i--) {
+            List<Process> fewer = copy(ps);
+            fewer.remove(i);
+            out.add(new Case(c.index, fewer, c.config));
+        }
+        int earliest = Integer.MAX_VALUE;
+        for (Process p : ps) earliest = Math.min(earliest, p.arrivalTime);
+        if (earliest > 0) {
+            List<Process> shifted = copy(ps);
+            for (Process p : shifted) p.arrivalTime -= earliest;
+            out.add(new Case(c.index, shifted, c.config));
+        }
+        for (int i = 0; i < ps.size(); i++) {
+            Process p = ps.get(i);
+            for (int v : towards(p.arrivalTime, 0)) out.add(with(c, i, v, p.burstTime, p.priority, p.quantum, p.deadline, p.period));
+            for (int v : towards(p.burstTime, 1)) out.add(with(c, i, p.arrivalTime, v, p.priority, p.quantum, p.deadline, p.period));
+            for (int v : towards(p.priority, 0)) out.add(with(c, i, p.arrivalTime, p.burstTime, v, p.quantum, p.deadline, p.period));
+            for (int v : towards(p.quantum, 1)) out.add(with(c, i, p.arrivalTime, p.burstTime, p.priority, v, p.deadline, p.period));
+            for (int v : towards(p.deadline, 0)) out.add(with(c, i, p.arrivalTime, p.burstTime, p.priority, p.quantum, v, p.period));
+            for (int v : towards(p.period, 0)) out.add(with(c, i, p.arrivalTime, p.burstTime, p.priority, p.quantum, p.deadline, v));
+        }
+        SchedulerConfig k = c.config;
+        for (int v : towards(k.contextSwitch, 0)) out.add(new Case(c.index, ps, with(k, k.rrQuantum, v, k.agingInterval)));
+        for (int v : towards(k.rrQuantum, 1)) out.add(new Case(c.index, ps, with(k, v, k.contextSwitch, k.agingInterval)));
+        for (int v : towards(k.agingInterval, 1)) out.add(new Case(c.index, ps, with(k, k.rrQuantum, k.contextSwitch, v)));
+        return out;
+    }
+
+    // k with the given basic settings; the MLFQ and CFS settings are kept
+    private static SchedulerConfig with(SchedulerConfig k, int rrQuantum, int contextSwitch, int agingInterval) {
+        SchedulerConfig config = new SchedulerConfig(rrQuantum, contextSwitch, agingInterval);
+        config.mlfqQuanta = k.mlfqQuanta;
+        config.mlfqBoostInterval = k.mlfqBoostInterval;
+        config.cfsTargetLatency = k.cfsTargetLatency;
+        config.cfsMinGranularity = k.cfsMinGranularity;
+        return config;
+    }
+
+    // Values between value and target, closest to the target first
+    private static int[] towards(int value, int target) {
+        if (value == target) return new int[0];
+        int half = target + (value - target) / 2;
+        int step = value > target ? value - 1 : value + 1;
+        if (half == target || half == step) return step == target ? new int[]{target} : new int[]{target, step};
+        return new int[]{target, half, step};
+    }
+
+    private static Case with(Case c, int i, int arrival, int burst, int priority, int quantum, int deadline, int period) {
+        List<Process> ps = copy(c.processes);
+        Process p = new Process(ps.get(i).name, arrival, burst, priority, quantum);
+        p.deadline = deadline;
+        p.period = period;
+        ps.set(i, p);
+        return new Case(c.index, ps, c.config);
+    }
+
+    private static List<Process> copy(List<Process> ps) {
+        List<Process> out = new ArrayList<>(ps.size());
+        for (Process p : ps) out.add(p.copy());
+        return out;
+    }
+
+    /**
+     * Checks cases 0..cases-1 of seed on threads threads and returns the
+     * shrunk mismatches, lowest case index first. Stops handing out cases
+     * once maxFailures cases have failed.
+     */
+    public static List<Mismatch> run(Algorithm algorithm, String engine, long cases, long seed, int maxProcesses,
+                                     int threads, int maxFailures) throws InterruptedException {
+        Candidate candidate = CANDIDATES.get(engine);
+        if (candidate == null) throw new IllegalArgumentException("Unknown engine: " + engine + ", expected one of " + CANDIDATES.keySet());
+        final int chunk = 256;
+        AtomicLong next = new AtomicLong();
+        ConcurrentSkipListMap<Long, Case> failed = new ConcurrentSkipListMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                while (failed.size() < maxFailures) {
+                    long from = next.getAndAdd(chunk);
+                    if (from >= cases) return;
+                    for (long i = from; i < Math.min(cases, from + chunk); i++) {
+                        Case c = generate(seed, i, maxProcesses);
+                        if (check(algorithm, candidate, c) != null) failed.put(i, c);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (Case c : failed.values()) {
+            if (mismatches.size() == maxFailures) break;
+            Case minimal = shrink(algorithm, candidate, c);
+            mismatches.add(new Mismatch(algorithm, engine, c, minimal, check(algorithm, candidate, minimal)));
+        }
+        return mismatches;
+    }
+
+    /**
+     * Reads a name whose escaped surrogate pair starts its low half at every
+     * byte around the end of WorkloadReader's 64 KB buffer; null when each
+     * decodes to the same string, otherwise the first that does not.
+     */
+    public static String checkReaderBoundaries() {
+        String head = "{\"input\": {\"processes\": [{\"name\": \"";
+        for (int low = (1 << 16) - 8; low <= (1 << 16) + 8; low++) {
+            String pad = "x".repeat(low - 6 - head.length());
+            String json = head + pad + "\\uD83D\\uDE00y\", \"arrival\": 0, \"burst\": 1}]}}";
+            try (WorkloadReader reader = new WorkloadReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0)) {
+                String name = reader.next().name;
+                if (!name.equals(pad + "\uD83D\uDE00y")) {
+                    return "WorkloadReader: pair with its low half at byte " + low + " read as ..."
+                            + name.substring(pad.length() - 2);
+                }
+            } catch (IOException | RuntimeException e) {
+                return "WorkloadReader: pair with its low half at byte " + low + " failed: " + e;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        long cases = Long.parseLong(options.getOrDefault("cases", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int maxProcesses = Integer.parseInt(options.getOrDefault("max-processes", "10"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int maxFailures = Integer.parseInt(options.getOrDefault("max-failures", "3"));
+
+        int failures = 0;
+        String reader = checkReaderBoundaries();
+        System.out.println(reader == null ? "WorkloadReader escapes across buffer ends agree" : reader);
+        if (reader != null) failures++;
+        for (String a : options.getOrDefault("algorithms", "sjf,rr,priority,ag,mlfq,cfs,edf,rm").split(",")) {
+            Algorithm algorithm = Algorithm.parse(a);
+            for (String engine : options.getOrDefault("engines", "event,compact,whatif,session").split(",")) {
+                long start = System.nanoTime();
+                List<Mismatch> mismatches = run(algorithm, engine.trim(), cases, seed, maxProcesses, threads, maxFailures);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-9s %-8s %s in %.1f s (%.0f cases/s)%n", algorithm, engine.trim(),
+                        mismatches.isEmpty() ? cases + " cases agree" : mismatches.size() + " MISMATCHES",
+                        seconds, cases / seconds);
+                for (Mismatch m : mismatches) System.out.println(m);
+                failures += mismatches.size();
+            }
+        }
+        if (failures > 0) System.exit(1);
+    }
+}
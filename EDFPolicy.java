@@ -0,0 +1,73 @@
+import java.util.function.IntPredicate;
+
+// Preemptive earliest deadline first: the waiting job with the earliest absolute deadline runs
+class EDFPolicy implements SchedulingPolicy {
+    private PolicyScheduler core;
+    private IndexedHeap ready;
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {
+        this.core = core;
+        this.ready = new IndexedHeap(capacity, this::compare);
+    }
+
+    @Override
+    public void reset() {
+        ready.clear();
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        EDFPolicy c = new EDFPolicy();
+        c.attach(core, 16);
+        c.ready.copyFrom(ready);
+        return c;
+    }
+
+    // Jobs without a deadline come last; ties go to the earlier job in the input
+    private int compare(int a, int b) {
+        int c = Long.compare(core.process(a).absoluteDeadline(), core.process(b).absoluteDeadline());
+        return c != 0 ? c : Long.compare(core.order(a), core.order(b));
+    }
+
+    @Override
+    public void grow(int capacity) {
+        ready.ensureCapacity(capacity);
+    }
+
+    @Override
+    public void onArrival(int slot, long time) {
+        ready.add(slot);
+    }
+
+    @Override
+    public int pickNext(long time) {
+        return ready.isEmpty() ? -1 : ready.poll();
+    }
+
+    // Deadlines are fixed, so only an arrival can preempt the running job
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        ready.forEachInOrder(visit);
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public long onTickBoundary(int running, long time) {
+        return !ready.isEmpty() && compare(ready.peek(), running) < 0 ? time : Long.MAX_VALUE;
+    }
+
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        return MetricsListener.Preemption.EARLIER_DEADLINE;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        ready.add(running);
+    }
+}
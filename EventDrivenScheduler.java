@@ -0,0 +1,82 @@
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Event-driven versions of the {@link CPUScheduler} algorithms. Instead of
+ * advancing the clock one tick at a time they jump straight to the next
+ * event (arrival, completion, ...) and keep the ready set in heaps, while
+ * producing exactly the same {@link SchedulerResult} as the tick-based code.
+ * They feed the whole list through the matching {@link StreamingScheduler}.
+ */
+public class EventDrivenScheduler {
+
+    public static SchedulerResult preemptiveSJF(List<Process> input, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.preemptiveSJF(contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult edf(List<Process> input, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.edf(contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult rateMonotonic(List<Process> input, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.rateMonotonic(contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult roundRobin(List<Process> input, int quantum, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.roundRobin(quantum, contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult priorityPreemptive(List<Process> input, int contextSwitch, int agingInterval) {
+        return run(input, listener -> StreamingScheduler.priorityPreemptive(contextSwitch, agingInterval, listener), false);
+    }
+
+    public static SchedulerResult mlfq(List<Process> input, int[] quanta, int boostInterval, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.mlfq(quanta, boostInterval, contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult fairShare(List<Process> input, int targetLatency, int minGranularity, int contextSwitch) {
+        return run(input, listener -> StreamingScheduler.fairShare(targetLatency, minGranularity, contextSwitch, listener), false);
+    }
+
+    public static SchedulerResult agScheduling(List<Process> input) {
+        return run(input, StreamingScheduler::agScheduling, true);
+    }
+
+    private static SchedulerResult run(List<Process> input, Function<ScheduleListener, StreamingScheduler> engine,
+                                       boolean quantumHistory) {
+        List<Process> processes = CPUScheduler.copyList(input);
+        SchedulerResult result = new SchedulerResult();
+        StreamingScheduler scheduler = engine.apply(new ScheduleListener() {
+            @Override
+            public void onDispatch(Process process, int time) {
+                result.executionOrder.add(process.name);
+            }
+
+            @Override
+            public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+                result.timeline.append(process == null ? null : process.name, start, end, reason);
+            }
+        });
+
+        // Input position is the tie-breaker of the linear scans in CPUScheduler
+        Process[] p = processes.toArray(new Process[0]);
+        for (int id : sortedByArrival(p)) scheduler.submit(p[id], id);
+        scheduler.finish();
+
+        CPUScheduler.calculateTimes(processes, result);
+        if (quantumHistory) {
+            for (Process proc : processes) result.quantumHistory.put(proc.name, proc.quantumHistory);
+        }
+        return result;
+    }
+
+    // Ids (input indexes) ordered by arrival time, input order among equal arrivals
+    static int[] sortedByArrival(Process[] p) {
+        long[] keys = new long[p.length];
+        for (int i = 0; i < p.length; i++) keys[i] = ((long) p[i].arrivalTime << 32) | i;
+        Arrays.sort(keys);
+        int[] ids = new int[p.length];
+        for (int i = 0; i < p.length; i++) ids[i] = (int) keys[i];
+        return ids;
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// CFS-style fair share. Every process accumulates virtual runtime, real run
+// time scaled by the inverse of its weight, and the one with the least
+// virtual runtime runs next. Weights come from Process.priority read as a
+// nice value (clamped to -20..19, lower is more important), with the
+// kernel's table of about 1.25x per step.
+//
+// The running process gets a slice of targetLatency shared by weight among
+// the runnable processes, at least minGranularity. When it is over, the
+// process keeps the CPU only while nobody waiting is behind it; before that
+// it is preempted once a waiting process falls more than minGranularity
+// nice-0 ticks behind. New arrivals start at the queue's minimum virtual
+// runtime so they cannot starve the others.
+//
+// Virtual runtime is kept in units of 2^-32 / weight-of-nice-0 ticks, so
+// charging a run is one exact multiplication and does not depend on where
+// the core split it. Waiting processes sit in a heap keyed on it.
+class FairSharePolicy implements SchedulingPolicy {
+    private static final int[] WEIGHT = {
+        88761, 71755, 56483, 46273, 36291,
+        29154, 23254, 18705, 14949, 11916,
+        9548, 7620, 6100, 4904, 3906,
+        3121, 2501, 1991, 1586, 1277,
+        1024, 820, 655, 526, 423,
+        335, 272, 215, 172, 137,
+        110, 87, 70, 56, 45,
+        36, 29, 23, 18, 15
+    };
+    private static final long[] INVERSE_WEIGHT = new long[WEIGHT.length];
+    static {
+        for (int i = 0; i < WEIGHT.length; i++) INVERSE_WEIGHT[i] = (1L << 32) / WEIGHT[i];
+    }
+    private static final int NICE_0 = 20;
+
+    private final int targetLatency;
+    private final int minGranularity;
+    private PolicyScheduler core;
+    private IndexedHeap ready;
+    private long[] vruntime;
+    private long waitingWeight;
+    private long minVruntime;
+
+    private int running = -1;
+    private long chargedUntil;
+    private long sliceEnd;
+    private boolean sliceExpired; // the last preemption came at the end of the slice rather than mid-slice
+
+    FairSharePolicy(int targetLatency, int minGranularity) {
+        if (targetLatency < 1 || minGranularity < 1) throw new IllegalArgumentException("CFS latency and granularity must be positive");
+        this.targetLatency = targetLatency;
+        this.minGranularity = minGranularity;
+    }
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {
+        this.core = core;
+        this.ready = new IndexedHeap(capacity, this::compare);
+        this.vruntime = new long[capacity];
+    }
+
+    @Override
+    public void reset() {
+        ready.clear();
+        waitingWeight = 0;
+        minVruntime = 0;
+        running = -1;
+        chargedUntil = 0;
+        sliceEnd = 0;
+        sliceExpired = false;
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        FairSharePolicy c = new FairSharePolicy(targetLatency, minGranularity);
+        c.attach(core, 16);
+        c.ready.copyFrom(ready);
+        c.vruntime = vruntime.clone();
+        c.waitingWeight = waitingWeight;
+        c.minVruntime = minVruntime;
+        c.running = running;
+        c.chargedUntil = chargedUntil;
+        c.sliceEnd = sliceEnd;
+        c.sliceExpired = sliceExpired;
+        return c;
+    }
+
+    private int compare(int a, int b) {
+        int c = Long.compare(vruntime[a], vruntime[b]);
+        return c != 0 ? c : Long.compare(core.order(a), core.order(b));
+    }
+
+    static int nice(Process p) { return Math.max(-20, Math.min(19, p.priority)) + NICE_0; }
+
+    static int weight(Process p) { return WEIGHT[nice(p)]; }
+
+    @Override
+    public void grow(int capacity) {
+        ready.ensureCapacity(capacity);
+        vruntime = Arrays.copyOf(vruntime, capacity);
+    }
+
+    // Arrivals can be admitted after their arrival time; the running process is charged up to the core's clock
+    @Override
+    public void onArrival(int slot, long time) {
+        long floor = Long.MAX_VALUE;
+        if (running >= 0) {
+            charge(running, core.time());
+            floor = vruntime[running];
+        }
+        if (!ready.isEmpty()) floor = Math.min(floor, vruntime[ready.peek()]);
+        if (floor != Long.MAX_VALUE) minVruntime = Math.max(minVruntime, floor);
+        vruntime[slot] = minVruntime;
+        ready.add(slot);
+        waitingWeight += weight(core.process(slot));
+    }
+
+    @Override
+    public int pickNext(long time) {
+        if (ready.isEmpty()) return -1;
+        int slot = ready.poll();
+        waitingWeight -= weight(core.process(slot));
+        return slot;
+    }
+
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        ready.forEachInOrder(visit);
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        running = slot;
+        chargedUntil = time;
+        sliceEnd = time + slice(slot);
+        return nextCheck(slot, time);
+    }
+
+    @Override
+    public long onTickBoundary(int running, long time) {
+        charge(running, time);
+        boolean behind = !ready.isEmpty() && vruntime[ready.peek()] < vruntime[running];
+        sliceExpired = time >= sliceEnd;
+        if (sliceExpired) {
+            if (behind) return time;
+            sliceEnd = time + slice(running);
+        } else if (!ready.isEmpty() && vruntime[ready.peek()] + granularity() < vruntime[running]) {
+            return time;
+        }
+        return nextCheck(running, time);
+    }
+
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        return sliceExpired ? MetricsListener.Preemption.QUANTUM_EXPIRED : MetricsListener.Preemption.FAIR_SHARE;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        ready.add(running);
+        waitingWeight += weight(core.process(running));
+        this.running = -1;
+    }
+
+    @Override
+    public void onCompletion(int slot, long time) {
+        running = -1;
+    }
+
+    private void charge(int slot, long time) {
+        if (time > chargedUntil) {
+            vruntime[slot] += (time - chargedUntil) * INVERSE_WEIGHT[nice(core.process(slot))];
+            chargedUntil = time;
+        }
+    }
+
+    private long slice(int slot) {
+        long w = weight(core.process(slot));
+        return Math.max(minGranularity, targetLatency * w / (waitingWeight + w));
+    }
+
+    private long granularity() { return minGranularity * INVERSE_WEIGHT[NICE_0]; }
+
+    // The end of the slice, or the first tick the leftmost waiting process is more than a granularity behind
+    private long nextCheck(int slot, long time) {
+        if (ready.isEmpty()) return sliceEnd;
+        long gap = vruntime[ready.peek()] + granularity() - vruntime[slot];
+        long overtake = chargedUntil + Math.floorDiv(gap, INVERSE_WEIGHT[nice(core.process(slot))]) + 1;
+        return Math.min(sliceEnd, overtake);
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.*;
+
+/**
+ * Fixed-size log-linear histogram of non-negative values, laid out like
+ * HdrHistogram: values below 128 are counted exactly, and every power of two
+ * above that is split into 64 buckets, so a recorded value is off by less
+ * than 1/64 of itself. Recording is a few shifts and one array increment.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 2) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    // Welford's running mean and sum of squared deviations, for the variance
+    private double runningMean, m2;
+
+    public void record(long value) {
+        if (value < 0) throw new IllegalArgumentException("Negative value: " + value);
+        counts[indexOf(value)]++;
+        total++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        double delta = value - runningMean;
+        runningMean += delta / total;
+        m2 += delta * (value - runningMean);
+    }
+
+    public long count() { return total; }
+
+    public long min() { return total == 0 ? 0 : min; }
+
+    public long max() { return total == 0 ? 0 : max; }
+
+    public double mean() { return total == 0 ? 0 : (double) sum / total; }
+
+    // Population variance of the exact recorded values, not the bucketed ones
+    public double variance() { return total == 0 ? 0 : m2 / total; }
+
+    public double stdDev() { return Math.sqrt(variance()); }
+
+    // Smallest recorded value (up to bucket precision) that percentile percent of the values do not exceed
+    public long valueAtPercentile(double percentile) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, Math.max(min, highestEquivalent(i)));
+        }
+        return max;
+    }
+
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        if (other.total > 0) {
+            // Chan et al.'s pairwise update, so merging in any order gives the variance of the union
+            long n = total + other.total;
+            double delta = other.runningMean - runningMean;
+            m2 += other.m2 + delta * delta * ((double) total * other.total / n);
+            runningMean += delta * other.total / n;
+        }
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        runningMean = 0;
+        m2 = 0;
+    }
+
+    private static int indexOf(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    private static long highestEquivalent(int index) {
+        int shift = Math.max(0, index / HALF - 1);
+        long sub = index - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d min=%d p50=%d p95=%d p99=%d max=%d mean=%.2f",
+                total, min(), valueAtPercentile(50), valueAtPercentile(95), valueAtPercentile(99), max(), mean());
+    }
+}
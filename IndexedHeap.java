@@ -0,0 +1,225 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Binary min-heap of dense int ids with an id -> slot index, so an id can be
+ * removed or re-keyed in O(log n). Keys are not stored in the heap: the
+ * comparator reads them from the caller's arrays, so a key must not change
+ * while its id is inside the heap.
+ */
+public class IndexedHeap {
+
+    @FunctionalInterface
+    public interface IdComparator {
+        int compare(int a, int b);
+    }
+
+    // id -> slot index. Several heaps may share one as long as an id is in at most one of them.
+    public static class Positions {
+        int[] at;
+
+        public Positions(int capacity) { at = new int[capacity]; }
+
+        public void ensureCapacity(int capacity) {
+            if (capacity > at.length) at = Arrays.copyOf(at, Math.max(capacity, at.length * 2));
+        }
+
+        public void copyFrom(Positions other) {
+            at = other.at.clone();
+        }
+    }
+
+    /**
+     * Heap arrays for heaps that keep being emptied and refilled: a growing
+     * heap trades its array for one twice as long and an emptied heap hands
+     * its array back, so once a pattern of use has been seen, repeating it
+     * allocates nothing. Capacities are powers of two from 16.
+     */
+    public static class ArrayPool {
+        private final int[][][] free = new int[32][][];
+        private final int[] count = new int[32];
+
+        int[] take(int capacity) {
+            int b = Integer.numberOfTrailingZeros(capacity);
+            if (count[b] == 0) return new int[capacity];
+            int[] array = free[b][--count[b]];
+            free[b][count[b]] = null;
+            return array;
+        }
+
+        void give(int[] array) {
+            if (array.length == 0) return;
+            int b = Integer.numberOfTrailingZeros(array.length);
+            if (free[b] == null) free[b] = new int[4][];
+            else if (count[b] == free[b].length) free[b] = Arrays.copyOf(free[b], count[b] * 2);
+            free[b][count[b]++] = array;
+        }
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private final IdComparator order;
+    private final Positions positions;
+    private final boolean sharedPositions;
+    private final ArrayPool pool;
+    private int[] heap;
+    private int size;
+
+    public IndexedHeap(int capacity, IdComparator order) {
+        this(new Positions(capacity), order, false, null, new int[Math.max(4, capacity)]);
+    }
+
+    public IndexedHeap(Positions shared, IdComparator order) {
+        this(shared, order, true, null, new int[16]);
+    }
+
+    // Shares positions and takes its arrays from pool; it holds none until the first add
+    public IndexedHeap(Positions shared, IdComparator order, ArrayPool pool) {
+        this(shared, order, true, pool, EMPTY);
+    }
+
+    private IndexedHeap(Positions positions, IdComparator order, boolean sharedPositions, ArrayPool pool, int[] heap) {
+        this.order = order;
+        this.positions = positions;
+        this.sharedPositions = sharedPositions;
+        this.pool = pool;
+        this.heap = heap;
+    }
+
+    // Takes over other's ids and layout. A shared Positions is not copied; its owner copies it once.
+    public void copyFrom(IndexedHeap other) {
+        heap = other.heap.clone();
+        size = other.size;
+        if (!sharedPositions) positions.copyFrom(other.positions);
+    }
+
+    // Makes room for ids below capacity
+    public void ensureCapacity(int capacity) {
+        positions.ensureCapacity(capacity);
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean contains(int id) {
+        if (id >= positions.at.length) return false;
+        int i = positions.at[id];
+        return i >= 0 && i < size && heap[i] == id;
+    }
+
+    public int peek() {
+        if (size == 0) throw new NoSuchElementException();
+        return heap[0];
+    }
+
+    // The id at heap index i; the children of index i are at 2i + 1 and 2i + 2
+    public int at(int i) {
+        if (i >= size) throw new NoSuchElementException();
+        return heap[i];
+    }
+
+    // Calls visit with the ids smallest first until it returns false, leaving the heap as it is; O(k log k) for k visited
+    public void forEachInOrder(IntPredicate visit) {
+        if (size == 0) return;
+        PriorityQueue<Integer> next = new PriorityQueue<>((a, b) -> order.compare(heap[a], heap[b]));
+        next.add(0);
+        while (!next.isEmpty()) {
+            int i = next.poll();
+            if (!visit.test(heap[i])) return;
+            if (2 * i + 1 < size) next.add(2 * i + 1);
+            if (2 * i + 2 < size) next.add(2 * i + 2);
+        }
+    }
+
+    public void add(int id) {
+        if (size == heap.length) grow();
+        heap[size] = id;
+        positions.at[id] = size;
+        siftUp(size++);
+    }
+
+    public int poll() {
+        int top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    public void remove(int id) {
+        if (contains(id)) removeAt(positions.at[id]);
+    }
+
+    // Restores heap order after the key of id changed.
+    public void update(int id) {
+        siftUp(positions.at[id]);
+        siftDown(positions.at[id]);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) positions.at[heap[i]] = -1;
+        size = 0;
+    }
+
+    // Empties the heap and, for a pooled heap, hands its array back to the pool
+    public void release() {
+        clear();
+        if (pool != null) {
+            pool.give(heap);
+            heap = EMPTY;
+        }
+    }
+
+    private void grow() {
+        if (pool == null) {
+            heap = Arrays.copyOf(heap, size * 2);
+            return;
+        }
+        int[] bigger = pool.take(Math.max(16, size * 2));
+        System.arraycopy(heap, 0, bigger, 0, size);
+        pool.give(heap);
+        heap = bigger;
+    }
+
+    private void removeAt(int i) {
+        int[] pos = positions.at;
+        int removed = heap[i];
+        int last = heap[--size];
+        pos[removed] = -1;
+        if (i == size) return;
+        heap[i] = last;
+        pos[last] = i;
+        siftUp(i);
+        siftDown(pos[last]);
+    }
+
+    private void siftUp(int i) {
+        int[] pos = positions.at;
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (order.compare(id, heap[parent]) >= 0) break;
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int[] pos = positions.at;
+        int id = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && order.compare(heap[right], heap[child]) < 0) child = right;
+            if (order.compare(id, heap[child]) <= 0) break;
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+}
@@ -0,0 +1,191 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// Multilevel feedback queue. New arrivals enter level 0; the highest
+// non-empty level runs, round robin inside a level. A process that uses up
+// the quantum of its level moves one level down; one preempted by a higher
+// level keeps what it used, so giving up the CPU early does not reset its
+// allotment. Every boostInterval ticks all processes go back to level 0.
+//
+// Levels are intrusive FIFO lists over the slots, so a boost concatenates
+// them in O(levels). The processes it moves are not touched: a process's
+// level and used allotment only count if they were set in the current boost
+// epoch, and read as level 0 with nothing used otherwise.
+class MLFQPolicy implements SchedulingPolicy {
+    private final int[] quanta;
+    private final int boostInterval;
+    private PolicyScheduler core;
+
+    private int[] next, level, used;
+    private long[] stamp;
+    private final int[] head, tail;
+    private long epoch;
+
+    private int running = -1;
+    private long chargedUntil;
+    private boolean demoted; // the last preemption used up the quantum rather than yielding to a higher level
+
+    MLFQPolicy(int[] quanta, int boostInterval) {
+        if (quanta.length == 0) throw new IllegalArgumentException("MLFQ needs at least one level");
+        for (int q : quanta) if (q < 1) throw new IllegalArgumentException("MLFQ quanta must be positive");
+        this.quanta = quanta.clone();
+        this.boostInterval = boostInterval;
+        this.head = new int[quanta.length];
+        this.tail = new int[quanta.length];
+        Arrays.fill(head, -1);
+        Arrays.fill(tail, -1);
+    }
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {
+        this.core = core;
+        next = new int[capacity];
+        level = new int[capacity];
+        used = new int[capacity];
+        stamp = new long[capacity];
+    }
+
+    // Stale stamps are harmless: every arrival sets its slot in the current epoch
+    @Override
+    public void reset() {
+        Arrays.fill(head, -1);
+        Arrays.fill(tail, -1);
+        epoch = 0;
+        running = -1;
+        chargedUntil = 0;
+        demoted = false;
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        MLFQPolicy c = new MLFQPolicy(quanta, boostInterval);
+        c.core = core;
+        c.next = next.clone();
+        c.level = level.clone();
+        c.used = used.clone();
+        c.stamp = stamp.clone();
+        System.arraycopy(head, 0, c.head, 0, head.length);
+        System.arraycopy(tail, 0, c.tail, 0, tail.length);
+        c.epoch = epoch;
+        c.running = running;
+        c.chargedUntil = chargedUntil;
+        c.demoted = demoted;
+        return c;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        next = Arrays.copyOf(next, capacity);
+        level = Arrays.copyOf(level, capacity);
+        used = Arrays.copyOf(used, capacity);
+        stamp = Arrays.copyOf(stamp, capacity);
+    }
+
+    // Arrivals can be admitted after their arrival time; boosts up to the core's clock come first
+    @Override
+    public void onArrival(int slot, long time) {
+        boost(core.time());
+        set(slot, 0, 0);
+        append(0, slot);
+    }
+
+    @Override
+    public int pickNext(long time) {
+        boost(time);
+        for (int l = 0; l < head.length; l++) {
+            int slot = head[l];
+            if (slot >= 0) {
+                head[l] = next[slot];
+                if (head[l] < 0) tail[l] = -1;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // A boost that is still due keeps this order: it appends the levels to level 0 in level order
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        for (int l = 0; l < head.length; l++) {
+            for (int slot = head[l]; slot >= 0; slot = next[slot]) if (!visit.test(slot)) return;
+        }
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        boost(time);
+        running = slot;
+        chargedUntil = time;
+        return sliceEnd(slot, time);
+    }
+
+    @Override
+    public long onTickBoundary(int running, long time) {
+        boost(time);
+        int l = levelOf(running);
+        int u = usedOf(running) + (int) (time - chargedUntil);
+        chargedUntil = time;
+        demoted = u >= quanta[l];
+        if (demoted) {
+            set(running, Math.min(l + 1, quanta.length - 1), 0);
+            return time;
+        }
+        set(running, l, u);
+        for (int higher = 0; higher < l; higher++) if (head[higher] >= 0) return time;
+        return sliceEnd(running, time);
+    }
+
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        return demoted ? MetricsListener.Preemption.QUANTUM_EXPIRED : MetricsListener.Preemption.HIGHER_PRIORITY;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        append(levelOf(running), running);
+        this.running = -1;
+    }
+
+    @Override
+    public void onCompletion(int slot, long time) {
+        running = -1;
+    }
+
+    // End of the running quantum, or the next boost if that comes first
+    private long sliceEnd(int slot, long time) {
+        long end = time + quanta[levelOf(slot)] - usedOf(slot);
+        return boostInterval > 0 ? Math.min(end, (epoch + 1) * boostInterval) : end;
+    }
+
+    // Applies the boosts at or before time: all levels join level 0 in level order
+    private void boost(long time) {
+        if (boostInterval <= 0) return;
+        long e = Math.floorDiv(time, (long) boostInterval);
+        if (e <= epoch) return;
+        epoch = e;
+        for (int l = 1; l < head.length; l++) {
+            if (head[l] < 0) continue;
+            if (tail[0] >= 0) next[tail[0]] = head[l]; else head[0] = head[l];
+            tail[0] = tail[l];
+            head[l] = tail[l] = -1;
+        }
+        // The running process starts over too; what it ran before the boost is forgotten
+        if (running >= 0) chargedUntil = Math.max(chargedUntil, e * boostInterval);
+    }
+
+    private int levelOf(int slot) { return stamp[slot] == epoch ? level[slot] : 0; }
+
+    private int usedOf(int slot) { return stamp[slot] == epoch ? used[slot] : 0; }
+
+    private void set(int slot, int l, int u) {
+        level[slot] = l;
+        used[slot] = u;
+        stamp[slot] = epoch;
+    }
+
+    private void append(int l, int slot) {
+        next[slot] = -1;
+        if (tail[l] >= 0) next[tail[l]] = slot; else head[l] = slot;
+        tail[l] = slot;
+    }
+}
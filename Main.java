@@ -16,8 +16,15 @@ public class Main {
     public static final String ANSI_BLUE = "\u001B[34m";
     public static final String ANSI_CYAN = "\u001B[36m";
 
-    public static void main(String[] args) throws IOException {
-        String baseFolder = ".";
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // java Main --report --workloads <dir|glob> [...]: aggregate comparison instead of the test run
+        if (args.length > 0 && args[0].equals("--report")) {
+            AggregateReport.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Folder holding AG/ and Other_Schedulers/
+        String baseFolder = args.length > 0 ? args[0] : ".";
         
         System.out.println(ANSI_CYAN + "\n==========================================" + ANSI_RESET);
         System.out.println(ANSI_CYAN + "      CPU SCHEDULER VERIFICATION RUN      " + ANSI_RESET);
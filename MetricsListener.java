@@ -0,0 +1,41 @@
+/**
+ * Optional instrumentation hooks of the {@link CPUScheduler} algorithms.
+ * Every callback takes primitives only, so reporting allocates nothing; a
+ * scheduler run without a listener only pays for the null checks.
+ */
+public interface MetricsListener {
+
+    enum Preemption {
+        SHORTER_JOB,      // SJF: a waiting job has less remaining time
+        QUANTUM_EXPIRED,  // RR, AG, MLFQ or CFS: the quantum or slice ran out
+        HIGHER_PRIORITY,  // Priority: a waiting process has a better base priority; MLFQ: a higher level has work
+        AGING,            // Priority: a waiting process only won because it aged
+        AG_PRIORITY,      // AG phase 2
+        AG_SHORTER_JOB,   // AG phase 3
+        FAIR_SHARE,       // CFS: a waiting process fell more than the granularity behind in virtual runtime
+        EARLIER_DEADLINE, // EDF: a waiting job has an earlier absolute deadline
+        SHORTER_PERIOD    // Rate-monotonic: a waiting job belongs to a task with a shorter period
+    }
+
+    // A context switch starting at time that takes cost ticks
+    default void onContextSwitch(int time, int cost) {}
+
+    // The process on the CPU was replaced while it still had work left
+    default void onPreemption(Preemption cause, int time) {}
+
+    default void onIdle(int ticks) {}
+
+    // Waiting processes (not counting the one picked) at a scheduling decision
+    default void onReadyQueue(int depth) {}
+
+    // A waiting process had its priority raised by one
+    default void onAgingPromotion(int time) {}
+
+    // A process ran for length ticks without leaving the CPU
+    default void onSlice(int length) {}
+
+    // A process got the CPU for the first time, responseTime ticks after arriving
+    default void onResponse(int responseTime) {}
+
+    default void onCompletion(int waitingTime, int turnaroundTime) {}
+}
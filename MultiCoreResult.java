@@ -0,0 +1,49 @@
+/**
+ * Outcome of a {@link MultiCoreScheduler} run: per-core timelines and time
+ * spent running and switching, plus the totals over all cores.
+ */
+public class MultiCoreResult {
+    public final int cores;
+    public final Timeline[] timelines;
+    public final long[] busy;      // ticks spent running processes, per core
+    public final long[] switching; // ticks spent in context switches, per core
+
+    public long completed;
+    public long migrations;
+    public long makespan;
+    long totalWaiting, totalTurnaround;
+
+    MultiCoreResult(int cores) {
+        this.cores = cores;
+        this.timelines = new Timeline[cores];
+        this.busy = new long[cores];
+        this.switching = new long[cores];
+        for (int c = 0; c < cores; c++) timelines[c] = new Timeline();
+    }
+
+    // Fraction of the makespan core spent running processes
+    public double utilization(int core) {
+        return makespan == 0 ? 0 : (double) busy[core] / makespan;
+    }
+
+    public double averageUtilization() {
+        long total = 0;
+        for (long b : busy) total += b;
+        return makespan == 0 ? 0 : (double) total / ((double) makespan * cores);
+    }
+
+    public double averageWaitingTime() { return completed == 0 ? 0 : (double) totalWaiting / completed; }
+
+    public double averageTurnaroundTime() { return completed == 0 ? 0 : (double) totalTurnaround / completed; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("cores=%d completed=%d makespan=%d migrations=%d avgWait=%.2f avgTurnaround=%.2f utilization=%.3f",
+                cores, completed, makespan, migrations, averageWaitingTime(), averageTurnaroundTime(), averageUtilization()));
+        for (int c = 0; c < cores; c++) {
+            sb.append(String.format("%n  core %d: busy=%d switching=%d utilization=%.3f", c, busy[c], switching[c], utilization(c)));
+        }
+        return sb.toString();
+    }
+}
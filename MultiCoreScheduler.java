@@ -0,0 +1,143 @@
+import java.util.*;
+
+/**
+ * Symmetric multi-processor mode for all four algorithms. Every core runs
+ * its own event-driven engine over its own run queue; a new arrival goes to
+ * the core with the fewest processes, and with work stealing on, a core that
+ * runs dry takes the next waiting process of the most loaded core.
+ *
+ * The cores are only synchronised at arrivals and at the earliest moment a
+ * busy core could run out of work (its clock plus its remaining burst), so
+ * the cost grows with the number of arrivals and idle events, not with the
+ * length of the schedule. With one core the schedule is exactly the
+ * single-CPU one.
+ *
+ * A stolen process queues on its new core as if it had just arrived there:
+ * it keeps its remaining time, priority and AG quantum, but aging starts
+ * over, and every move counts as a migration.
+ */
+public class MultiCoreScheduler {
+
+    public static MultiCoreResult run(Algorithm algorithm, List<Process> input, SchedulerConfig config,
+                                      int cores, boolean workStealing) {
+        if (cores < 1) throw new IllegalArgumentException("Need at least one core");
+        return new MultiCoreScheduler(algorithm, config, cores, workStealing).simulate(input);
+    }
+
+    private final int cores;
+    private final boolean workStealing;
+    private final StreamingScheduler[] engines;
+    private final MultiCoreResult result;
+
+    // Remaining burst of the processes on each core, and the end of its last scheduled segment
+    private final long[] remainingWork;
+    private final long[] clock;
+
+    private MultiCoreScheduler(Algorithm algorithm, SchedulerConfig config, int cores, boolean workStealing) {
+        this.cores = cores;
+        this.workStealing = workStealing;
+        this.engines = new StreamingScheduler[cores];
+        this.result = new MultiCoreResult(cores);
+        this.remainingWork = new long[cores];
+        this.clock = new long[cores];
+        for (int c = 0; c < cores; c++) {
+            engines[c] = algorithm.streaming(config, new CoreListener(c));
+        }
+    }
+
+    private class CoreListener implements ScheduleListener {
+        private final int core;
+
+        CoreListener(int core) {
+            this.core = core;
+        }
+
+        @Override
+        public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+            result.timelines[core].append(process == null ? null : process.name, start, end, reason);
+            clock[core] = Math.max(clock[core], end);
+            if (reason == Timeline.Reason.RUN) {
+                remainingWork[core] -= end - start;
+                result.busy[core] += end - start;
+            } else if (reason == Timeline.Reason.CONTEXT_SWITCH) {
+                result.switching[core] += end - start;
+            }
+        }
+
+        @Override
+        public void onCompletion(Process process) {
+            result.completed++;
+            result.totalWaiting += process.waitingTime;
+            result.totalTurnaround += process.turnaroundTime;
+            result.makespan = Math.max(result.makespan, process.completionTime);
+        }
+    }
+
+    private MultiCoreResult simulate(List<Process> input) {
+        Process[] p = input.toArray(new Process[0]);
+        int[] order = EventDrivenScheduler.sortedByArrival(p);
+        int next = 0;
+        long now = Long.MIN_VALUE;
+
+        while (true) {
+            long t = next < order.length ? p[order[next]].arrivalTime : Long.MAX_VALUE;
+            if (workStealing && hasWaiting()) t = Math.min(t, Math.max(now + 1, earliestIdle(now)));
+            if (t == Long.MAX_VALUE) break;
+
+            for (StreamingScheduler engine : engines) engine.advanceTo((int) t);
+            now = t;
+            while (next < order.length && p[order[next]].arrivalTime == t) {
+                int id = order[next++];
+                int core = leastLoaded();
+                remainingWork[core] += p[id].burstTime;
+                engines[core].submit(p[id].copy(), id);
+            }
+            if (workStealing) balance(now);
+        }
+        for (StreamingScheduler engine : engines) engine.finish();
+        return result;
+    }
+
+    // Fewest processes in the system, then the lowest core number
+    private int leastLoaded() {
+        int best = 0;
+        for (int c = 1; c < cores; c++) {
+            if (engines[c].activeCount() < engines[best].activeCount()) best = c;
+        }
+        return best;
+    }
+
+    private boolean hasWaiting() {
+        for (StreamingScheduler engine : engines) if (engine.activeCount() > 1) return true;
+        return false;
+    }
+
+    // No busy core can run dry before its clock plus its remaining burst
+    private long earliestIdle(long now) {
+        long earliest = Long.MAX_VALUE;
+        for (int c = 0; c < cores; c++) {
+            if (engines[c].activeCount() > 0) earliest = Math.min(earliest, Math.max(now, clock[c]) + remainingWork[c]);
+        }
+        return earliest;
+    }
+
+    // Every idle core steals from the core with the most processes while there is anything to steal
+    private void balance(long now) {
+        for (int thief = 0; thief < cores; thief++) {
+            if (engines[thief].activeCount() > 0) continue;
+            int victim = -1;
+            for (int c = 0; c < cores; c++) {
+                if (engines[c].activeCount() > 1 && (victim < 0 || engines[c].activeCount() > engines[victim].activeCount())) {
+                    victim = c;
+                }
+            }
+            if (victim < 0) return;
+            Process moved = engines[victim].migrateTo(engines[thief], now);
+            if (moved != null) {
+                remainingWork[victim] -= moved.remainingTime;
+                remainingWork[thief] += moved.remainingTime;
+                result.migrations++;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Picks the rrQuantum for round robin or the agingInterval for the priority
+ * scheduler that minimises average waiting time, average turnaround time or
+ * a weighted mix of the two.
+ *
+ * The workload is sorted by arrival once and streamed into one event-driven
+ * engine per candidate, candidates run in parallel, and a candidate is
+ * abandoned as soon as a lower bound on its score is worse than the best
+ * complete score found so far.
+ */
+public class ParameterSweep {
+
+    public enum Objective { WAITING, TURNAROUND, WEIGHTED }
+
+    public static class Result {
+        public final int best;
+        public final double bestScore;
+        public final int[] candidates;
+        public final double[] scores; // NaN for pruned candidates
+        public final int pruned;
+
+        Result(int best, double bestScore, int[] candidates, double[] scores, int pruned) {
+            this.best = best;
+            this.bestScore = bestScore;
+            this.candidates = candidates;
+            this.scores = scores;
+            this.pruned = pruned;
+        }
+
+        @Override
+        public String toString() {
+            return "best=" + best + " score=" + bestScore + " (" + pruned + "/" + candidates.length + " pruned)";
+        }
+    }
+
+    public static Result tuneRoundRobinQuantum(List<Process> workload, int[] quanta, int contextSwitch,
+                                               Objective objective, double waitingWeight) {
+        return sweep(workload, quanta, objective, waitingWeight,
+                (q, listener) -> StreamingScheduler.roundRobin(q, contextSwitch, listener));
+    }
+
+    public static Result tuneAgingInterval(List<Process> workload, int[] agingIntervals, int contextSwitch,
+                                           Objective objective, double waitingWeight) {
+        return sweep(workload, agingIntervals, objective, waitingWeight,
+                (aging, listener) -> StreamingScheduler.priorityPreemptive(contextSwitch, aging, listener));
+    }
+
+    // Candidate values from first to last (inclusive) in steps of step
+    public static int[] range(int first, int last, int step) {
+        return IntStream.iterate(first, v -> v <= last, v -> v + step).toArray();
+    }
+
+    private interface EngineFactory {
+        StreamingScheduler create(int candidate, ScheduleListener listener);
+    }
+
+    // Thrown out of the listener to stop a candidate that can no longer win
+    private static class Pruned extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Pruned() { super(null, null, false, false); }
+    }
+
+    private static Result sweep(List<Process> workload, int[] candidates, Objective objective, double waitingWeight,
+                                EngineFactory factory) {
+        if (candidates.length == 0) throw new IllegalArgumentException("No candidates");
+        double w = objective == Objective.WAITING ? 1 : objective == Objective.TURNAROUND ? 0 : waitingWeight;
+
+        // Shared by every candidate: arrival order and the total burst
+        Process[] p = workload.toArray(new Process[0]);
+        int[] order = EventDrivenScheduler.sortedByArrival(p);
+        long totalBurst = 0;
+        for (Process proc : p) totalBurst += proc.burstTime;
+        int n = p.length;
+        long burstSum = totalBurst;
+
+        AtomicLong bestBits = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        double[] scores = new double[candidates.length];
+
+        IntStream.range(0, candidates.length).parallel().forEach(c -> {
+            long[] sums = new long[3]; // waiting, turnaround, burst of completed processes
+            ScheduleListener listener = new ScheduleListener() {
+                @Override
+                public void onCompletion(Process process) {
+                    sums[0] += process.waitingTime;
+                    sums[1] += process.turnaroundTime;
+                    sums[2] += process.burstTime;
+                    // Unfinished processes add at least 0 waiting and their burst as turnaround
+                    double bound = (w * sums[0] + (1 - w) * (sums[1] + burstSum - sums[2])) / n;
+                    if (bound > Double.longBitsToDouble(bestBits.get())) throw new Pruned();
+                }
+            };
+            try {
+                StreamingScheduler engine = factory.create(candidates[c], listener);
+                for (int id : order) engine.submit(p[id].copy(), id);
+                engine.finish();
+            } catch (Pruned e) {
+                scores[c] = Double.NaN;
+                return;
+            }
+            double score = (w * sums[0] + (1 - w) * sums[1]) / n;
+            scores[c] = score;
+            bestBits.accumulateAndGet(Double.doubleToLongBits(score),
+                    (a, b) -> Double.longBitsToDouble(b) < Double.longBitsToDouble(a) ? b : a);
+        });
+
+        int best = -1, pruned = 0;
+        for (int c = 0; c < candidates.length; c++) {
+            if (Double.isNaN(scores[c])) {
+                pruned++;
+            } else if (best < 0 || scores[c] < scores[best]) {
+                best = c;
+            }
+        }
+        return new Result(candidates[best], scores[best], candidates.clone(), scores, pruned);
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.*;
+
+/**
+ * Expands periodic tasks into the job instances the schedulers run. A task
+ * is a Process with a period: its first job is released at arrivalTime and
+ * one more every period ticks, each with the task's burst, priority,
+ * quantum, deadline and period and named task#k. A Process without a period
+ * is a single job.
+ *
+ * The jobs of all tasks come out merged in release order (task order among
+ * equal releases) from a heap holding one entry per task, so a horizon
+ * with millions of jobs is streamed into a {@link StreamingScheduler}
+ * without building them all first.
+ *
+ * Usage: java PeriodicTasks [--tasks 20] [--utilization 0.9] [--horizon 10000000]
+ *        [--min-period 100] [--max-period 10000] [--algorithms edf,rm] [--seed 42]
+ */
+public class PeriodicTasks {
+
+    // Jobs of tasks released before horizon, in release order
+    public static Iterator<Process> jobs(List<Process> tasks, long horizon) {
+        Process[] task = tasks.toArray(new Process[0]);
+        long[] release = new long[task.length];
+        int[] released = new int[task.length];
+        IndexedHeap next = new IndexedHeap(task.length, (a, b) -> {
+            int c = Long.compare(release[a], release[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int i = 0; i < task.length; i++) {
+            if (task[i].period < 0) throw new IllegalArgumentException(task[i].name + " has a negative period");
+            release[i] = task[i].arrivalTime;
+            if (release[i] < horizon) next.add(i);
+        }
+        return new Iterator<Process>() {
+            @Override
+            public boolean hasNext() { return !next.isEmpty(); }
+
+            @Override
+            public Process next() {
+                if (next.isEmpty()) throw new NoSuchElementException();
+                int i = next.peek();
+                Process t = task[i];
+                if (release[i] > Integer.MAX_VALUE) throw new IllegalStateException("Release of " + t.name + " does not fit in an int");
+                Process job = new Process(t.period > 0 ? t.name + "#" + ++released[i] : t.name, (int) release[i],
+                        t.burstTime, t.priority, t.quantum);
+                job.deadline = t.deadline;
+                job.period = t.period;
+                release[i] += t.period;
+                if (t.period > 0 && release[i] < horizon) next.update(i); else next.poll();
+                return job;
+            }
+        };
+    }
+
+    public static List<Process> expand(List<Process> tasks, long horizon) {
+        List<Process> jobs = new ArrayList<>();
+        jobs(tasks, horizon).forEachRemaining(jobs::add);
+        return jobs;
+    }
+
+    // Fraction of the CPU the periodic tasks ask for
+    public static double utilization(List<Process> tasks) {
+        double u = 0;
+        for (Process t : tasks) if (t.period > 0) u += (double) t.burstTime / t.period;
+        return u;
+    }
+
+    /**
+     * count periodic tasks with implicit deadlines, released at 0, whose
+     * utilisations sum to about utilization (UUniFast) and whose periods are
+     * log-uniform in [minPeriod, maxPeriod]. Bursts are rounded to whole
+     * ticks, at least 1.
+     */
+    public static List<Process> randomTaskSet(int count, double utilization, int minPeriod, int maxPeriod, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Process> tasks = new ArrayList<>(count);
+        double left = utilization;
+        for (int i = 0; i < count; i++) {
+            double share = i == count - 1 ? left : left - left * Math.pow(random.nextDouble(), 1.0 / (count - 1 - i));
+            left -= share;
+            int period = (int) Math.round(Math.exp(Math.log(minPeriod) + random.nextDouble() * (Math.log(maxPeriod) - Math.log(minPeriod))));
+            Process t = new Process("T" + (i + 1), 0, Math.max(1, (int) Math.round(share * period)), 0, 0);
+            t.period = period;
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        int count = Integer.parseInt(options.getOrDefault("tasks", "20"));
+        double utilization = Double.parseDouble(options.getOrDefault("utilization", "0.9"));
+        long horizon = Long.parseLong(options.getOrDefault("horizon", "10000000"));
+        int minPeriod = Integer.parseInt(options.getOrDefault("min-period", "100"));
+        int maxPeriod = Integer.parseInt(options.getOrDefault("max-period", "10000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        List<Process> tasks = randomTaskSet(count, utilization, minPeriod, maxPeriod, seed);
+        System.out.printf("%d tasks, utilization %.4f (rate-monotonic bound %.4f), horizon %d%n",
+                count, utilization(tasks), count * (Math.pow(2, 1.0 / count) - 1), horizon);
+        for (String a : options.getOrDefault("algorithms", "edf,rm").split(",")) {
+            Algorithm algorithm = Algorithm.parse(a);
+            SchedulerStats stats = new SchedulerStats(Math.max(1, maxPeriod));
+            long start = System.nanoTime();
+            algorithm.streaming(new SchedulerConfig(), stats).keepQuantumHistory(false).run(jobs(tasks, horizon));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-4s %d jobs in %.2f s (%.0f jobs/s), %d missed (%.4f), max lateness %d, tardiness %s%n",
+                    algorithm, stats.deadlineJobs, seconds, stats.deadlineJobs / seconds, stats.deadlineMisses,
+                    stats.missRatio(), stats.maxLateness, stats.tardiness);
+        }
+    }
+}
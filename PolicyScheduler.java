@@ -0,0 +1,153 @@
+import java.util.function.Predicate;
+
+/**
+ * Discrete-event core shared by every streaming scheduler. It jumps from
+ * event to event (arrival, completion, end of a slice) and leaves the
+ * decisions to a {@link SchedulingPolicy}: which waiting process runs next,
+ * how long its slice is and whether it is preempted.
+ *
+ * The core admits arrivals, accounts for idle time and context switches,
+ * completes processes and reports the schedule. A slice always stops at
+ * the next arrival so the policy can react to it, but a process that was
+ * just switched to runs at least one tick first, like the tick-based code
+ * that only sees arrivals during a context switch after it.
+ */
+public final class PolicyScheduler extends StreamingScheduler {
+
+    private final SchedulingPolicy policy;
+    private final int contextSwitch;
+    private long time;
+    private Process last;
+
+    private int running = -1;
+    private long sliceEnd;
+    // running's slice stopped at time; the policy decides once the arrivals at time are admitted
+    private boolean atBoundary;
+    private int waiting;
+
+    public PolicyScheduler(SchedulingPolicy policy, int contextSwitch, ScheduleListener listener) {
+        super(listener);
+        this.policy = policy;
+        this.contextSwitch = contextSwitch;
+        policy.attach(this, slots.length);
+    }
+
+    private PolicyScheduler(PolicyScheduler from, ScheduleListener listener) {
+        super(from, listener);
+        policy = from.policy.copy(this);
+        contextSwitch = from.contextSwitch;
+        time = from.time;
+        last = counterpart(from.last, from);
+        running = from.running;
+        sliceEnd = from.sliceEnd;
+        atBoundary = from.atBoundary;
+        waiting = from.waiting;
+    }
+
+    @Override
+    StreamingScheduler copy(ScheduleListener listener) {
+        return new PolicyScheduler(this, listener);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        policy.reset();
+        time = 0;
+        last = null;
+        running = -1;
+        sliceEnd = 0;
+        atBoundary = false;
+        waiting = 0;
+    }
+
+    // The process in slot; only valid while it is in the system
+    public Process process(int slot) { return slots[slot]; }
+
+    @Override
+    public Process running() { return running < 0 ? null : slots[running]; }
+
+    @Override
+    public void forEachWaiting(Predicate<Process> visit) {
+        policy.forEachWaiting(time, slot -> visit.test(slots[slot]));
+    }
+
+    // Everything before this time has been simulated; arrivals can be admitted after their arrivalTime
+    public long time() { return time; }
+
+    // Tie-breaker of slot: its position in the input, or its submission number
+    public long order(int slot) { return order[slot]; }
+
+    @Override
+    void admit(int slot, long at) {
+        if (running < 0 && waiting == 0) time = idleUntil(time, at);
+        waiting++;
+        policy.onArrival(slot, at);
+    }
+
+    @Override
+    int takeWaiting() {
+        int slot = waiting == 0 ? -1 : policy.pickNext(time);
+        if (slot >= 0) waiting--;
+        return slot;
+    }
+
+    @Override
+    void grow(int capacity) {
+        policy.grow(capacity);
+    }
+
+    @Override
+    void advance(long horizon) {
+        while (true) {
+            if (atBoundary) {
+                if (time >= horizon) return;
+                atBoundary = false;
+                long end = policy.onTickBoundary(running, time);
+                if (end <= time) preempt(); else sliceEnd = end;
+            }
+            if (running < 0) {
+                if (waiting == 0 || time >= horizon) return;
+                int pick = policy.pickNext(time);
+                waiting--;
+                Process p = slots[pick];
+                if (last != null && last != p) {
+                    long start = time;
+                    time += contextSwitch;
+                    segment(p, start, time, Timeline.Reason.CONTEXT_SWITCH);
+                    policy.onContextSwitch(start, time);
+                }
+                if (last != p || policy.dispatchesEverySlice()) dispatched(pick, time);
+                last = p;
+                running = pick;
+                sliceEnd = policy.onDispatch(pick, time);
+            }
+
+            Process p = slots[running];
+            long end = Math.min(Math.min(time + p.remainingTime, sliceEnd), Math.max(time + 1, horizon));
+            end = Math.max(end, time);
+            segment(p, time, end, Timeline.Reason.RUN);
+            p.remainingTime -= (int) (end - time);
+            time = end;
+
+            if (p.remainingTime == 0) {
+                policy.onCompletion(running, time);
+                completed(running, time);
+                running = -1;
+            } else if (policy.onSliceEnd(running, time)) {
+                preempt();
+            } else {
+                atBoundary = true;
+            }
+        }
+    }
+
+    private void preempt() {
+        // Asked before onPreempt resets it, reported after so AG's new quantum belongs to this slice
+        MetricsListener.Preemption cause = policy.preemptionCause(running, time);
+        policy.onPreempt(running, time);
+        listener.onPreemption(slots[running], (int) time, cause);
+        waiting++;
+        running = -1;
+    }
+}
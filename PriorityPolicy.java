@@ -0,0 +1,551 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// Preemptive priority with aging, see CPUScheduler.priorityPreemptive.
+//
+// Aging is evaluated lazily. A waiting process that had priority pr and wait
+// counter w at the start of tick t (w < interval) has, after the aging step
+// of any later tick t', the effective priority
+//
+//     pr - floor((t' - c) / interval) = ceil((A - t') / interval)
+//
+// with c = t - 1 - w and A = c + interval * pr. A does not change while the
+// process keeps waiting, so it is the only thing stored per process.
+// Processes with the same A mod interval age on the same ticks, so inside
+// one such class the order by (A, arrival, input order) is fixed and a heap
+// works; the best waiting process is the best class top. A context switch
+// piles contextSwitch ticks onto every wait counter at once and the
+// tick-based code only takes one step of aging for that, so it shifts whole
+// classes (and merges them) instead of touching single processes.
+class PriorityPolicy implements SchedulingPolicy {
+    private final int interval;
+    private PolicyScheduler core;
+    private AgingQueue aging;
+
+    private int running = -1;
+    private long runningPriority; // frozen while it runs
+    private long pickedPriority;
+    // Preempted process; it waits again once the context switch is over
+    private int preempted = -1;
+
+    // Window of the latest context switch; arrivals inside it only wait for part of it
+    private long switchStart = Long.MIN_VALUE, switchEnd = Long.MIN_VALUE;
+
+    PriorityPolicy(int agingInterval) {
+        this.interval = Math.max(1, agingInterval);
+    }
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {
+        this.core = core;
+        this.aging = new AgingQueue(capacity);
+    }
+
+    @Override
+    public void reset() {
+        aging.clear();
+        running = -1;
+        runningPriority = pickedPriority = 0;
+        preempted = -1;
+        switchStart = switchEnd = Long.MIN_VALUE;
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        PriorityPolicy c = new PriorityPolicy(interval);
+        c.attach(core, 16);
+        c.aging.copyFrom(aging);
+        c.running = running;
+        c.runningPriority = runningPriority;
+        c.pickedPriority = pickedPriority;
+        c.preempted = preempted;
+        c.switchStart = switchStart;
+        c.switchEnd = switchEnd;
+        return c;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        aging.grow(capacity);
+    }
+
+    @Override
+    public void onArrival(int slot, long at) {
+        long c = at - 1;
+        if (at > switchStart && at <= switchEnd) {
+            c = switchEnd - Math.min(switchEnd - at, interval - 1);
+        }
+        aging.add(slot, c + (long) interval * core.process(slot).priority);
+    }
+
+    @Override
+    public int pickNext(long time) {
+        AgingQueue.AgingClass from = aging.best(time);
+        if (from == null) return -1;
+        int slot = from.top;
+        pickedPriority = aging.priorityAt(slot, from, time);
+        aging.poll(from);
+        return slot;
+    }
+
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        aging.forEachInOrder(time, visit);
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        running = slot;
+        runningPriority = pickedPriority;
+        return overtake(time);
+    }
+
+    @Override
+    public long onTickBoundary(int running, long time) {
+        AgingQueue.AgingClass c = aging.best(time);
+        if (c != null && aging.before(aging.priorityAt(c.top, c, time), c.top, runningPriority, running)) return time;
+        return overtake(time);
+    }
+
+    // First tick a waiting process ages past the running one; it runs at least
+    // one tick. A class top with key A gets there at A - interval * runningPriority
+    // if it wins the tie on arrival and input order, one interval later otherwise,
+    // so only the first tie winner and the smallest A overall can be first.
+    private long overtake(long time) {
+        AgingQueue.AgingClass first = aging.first();
+        if (first == null) return Long.MAX_VALUE;
+        AgingQueue.AgingClass winner = aging.firstBefore(running);
+        long stop = Math.min(winner == null ? Long.MAX_VALUE : winner.a, first.a + interval) - (long) interval * runningPriority;
+        return Math.max(stop, time + 1);
+    }
+
+    // Like the tick-based code: an aging preemption unless the winner beats running's current priority unaged
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        Process winner = core.process(aging.best(time).top), cur = core.process(running);
+        boolean winsUnaged = winner.priority < runningPriority
+                || (winner.priority == runningPriority && winner.arrivalTime < cur.arrivalTime);
+        return winsUnaged ? MetricsListener.Preemption.HIGHER_PRIORITY : MetricsListener.Preemption.AGING;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        preempted = running;
+    }
+
+    @Override
+    public void onContextSwitch(long start, long end) {
+        int contextSwitch = (int) (end - start);
+        aging.contextSwitch(start, contextSwitch);
+        switchStart = start;
+        switchEnd = end;
+        if (preempted >= 0) {
+            long c = end - Math.min(contextSwitch, interval - 1);
+            aging.add(preempted, c + interval * runningPriority);
+            preempted = -1;
+        }
+    }
+
+    // Waiting processes, grouped into classes that age on the same ticks. The
+    // non-empty classes are found by A mod interval through a small hash map
+    // sized by the live classes, and are kept in a treap ordered by the
+    // (A, arrival, input order) of their top, where every subtree knows its
+    // top with the best (arrival, input order). At any time the tops sharing
+    // the best current priority are a prefix of that order, so the best
+    // waiting process, the first tie winner and the first to age past the
+    // running one are each one walk down the treap, O(log classes).
+    private class AgingQueue {
+        class AgingClass {
+            final IndexedHeap heap = new IndexedHeap(positions, this::compare, arrays);
+            long shift; // added to key[] of every member to get its A
+            int slot;   // A mod interval
+            int liveIndex;
+
+            // Treap node, valid while inTree; a and top are those of the heap top when it was inserted
+            boolean inTree;
+            long a;
+            int top;
+            final int weight = random.nextInt();
+            AgingClass left, right;
+            AgingClass best; // smallest (arrival, input order) of a top in this subtree
+
+            private int compare(int a, int b) {
+                int cmp = Long.compare(key[a], key[b]);
+                if (cmp != 0) return cmp;
+                cmp = Integer.compare(core.process(a).arrivalTime, core.process(b).arrivalTime);
+                return cmp != 0 ? cmp : Long.compare(core.order(a), core.order(b));
+            }
+        }
+
+        final IndexedHeap.Positions positions;
+        // Heap arrays go back here when a class empties, so that classes can trade roles between runs
+        private final IndexedHeap.ArrayPool arrays = new IndexedHeap.ArrayPool();
+        long[] key;
+        // Fixed seed: the treap shape never changes a decision, but runs stay reproducible
+        private final SplittableRandom random = new SplittableRandom(0x5eed);
+        private AgingClass root;
+        // Open-addressing map A mod interval -> class, at most half full
+        private AgingClass[] bySlot = new AgingClass[8];
+        private int mapped;
+        AgingClass[] live = new AgingClass[4];
+        int liveCount;
+        // Emptied classes, reused so that steady-state scheduling does not allocate
+        private AgingClass[] spare = new AgingClass[4];
+        private int spareCount;
+        private AgingClass[] merging = new AgingClass[4];
+
+        AgingQueue(int capacity) {
+            positions = new IndexedHeap.Positions(capacity);
+            key = new long[capacity];
+        }
+
+        void grow(int capacity) {
+            key = Arrays.copyOf(key, capacity);
+            positions.ensureCapacity(capacity);
+        }
+
+        void clear() {
+            for (int i = 0; i < liveCount; i++) {
+                live[i].inTree = false;
+                release(live[i]);
+                live[i] = null;
+            }
+            liveCount = 0;
+            root = null;
+            Arrays.fill(bySlot, null);
+            mapped = 0;
+        }
+
+        void copyFrom(AgingQueue other) {
+            positions.copyFrom(other.positions);
+            key = other.key.clone();
+            for (int i = 0; i < other.liveCount; i++) {
+                AgingClass from = other.live[i], c = new AgingClass();
+                c.heap.copyFrom(from.heap);
+                c.shift = from.shift;
+                c.slot = from.slot;
+                put(c);
+                addLive(c);
+                attach(c);
+            }
+        }
+
+        long priorityAt(int slot, AgingClass c, long time) {
+            return -Math.floorDiv(time - (c.shift + key[slot]), interval);
+        }
+
+        // Same ordering as the linear scan: priority, then arrival, then input order
+        boolean before(long priorityA, int a, long priorityB, int b) {
+            if (priorityA != priorityB) return priorityA < priorityB;
+            return tieBefore(a, b);
+        }
+
+        private boolean tieBefore(int a, int b) {
+            int arrivalA = core.process(a).arrivalTime, arrivalB = core.process(b).arrivalTime;
+            if (arrivalA != arrivalB) return arrivalA < arrivalB;
+            return core.order(a) < core.order(b);
+        }
+
+        // Class whose top is the best waiting process at time, null when nothing waits
+        AgingClass best(long time) {
+            AgingClass first = first();
+            if (first == null) return null;
+            // Tops with A up to last have the same priority as the smallest A
+            long last = time + (long) interval * priorityAt(first.top, first, time);
+            AgingClass best = null;
+            for (AgingClass n = root; n != null; ) {
+                if (n.a <= last) {
+                    if (best == null || tieBefore(n.top, best.top)) best = n;
+                    if (n.left != null && tieBefore(n.left.best.top, best.top)) best = n.left.best;
+                    n = n.right;
+                } else {
+                    n = n.left;
+                }
+            }
+            return best;
+        }
+
+        // Class with the smallest top A
+        AgingClass first() {
+            AgingClass n = root;
+            if (n == null) return null;
+            while (n.left != null) n = n.left;
+            return n;
+        }
+
+        // Class with the smallest top A among those whose top wins the tie against slot
+        AgingClass firstBefore(int slot) {
+            AgingClass n = root;
+            while (n != null) {
+                if (n.left != null && tieBefore(n.left.best.top, slot)) n = n.left;
+                else if (tieBefore(n.top, slot)) return n;
+                else if (n.right != null && tieBefore(n.right.best.top, slot)) n = n.right;
+                else return null;
+            }
+            return null;
+        }
+
+        // Calls visit with the waiting slots best first at time until it
+        // returns false. Class tops come out of the treap in A order, so with
+        // priorities that never decrease; a top is taken into the candidates
+        // once its priority is no worse than the best candidate's, and a
+        // visited process makes its heap children candidates. Costs the
+        // number visited plus the tops that share their priorities, times log.
+        void forEachInOrder(long time, IntPredicate visit) {
+            Deque<AgingClass> path = new ArrayDeque<>();
+            for (AgingClass n = root; n != null; n = n.left) path.push(n);
+            PriorityQueue<Candidate> next = new PriorityQueue<>((x, y) -> x.slot == y.slot ? 0
+                    : before(x.priority, x.slot, y.priority, y.slot) ? -1 : 1);
+            while (true) {
+                while (!path.isEmpty() && (next.isEmpty() || priorityAt(path.peek().top, path.peek(), time) <= next.peek().priority)) {
+                    AgingClass c = path.pop();
+                    for (AgingClass n = c.right; n != null; n = n.left) path.push(n);
+                    next.add(new Candidate(c, 0, time));
+                }
+                Candidate e = next.poll();
+                if (e == null || !visit.test(e.slot)) return;
+                if (2 * e.index + 1 < e.c.heap.size()) next.add(new Candidate(e.c, 2 * e.index + 1, time));
+                if (2 * e.index + 2 < e.c.heap.size()) next.add(new Candidate(e.c, 2 * e.index + 2, time));
+            }
+        }
+
+        // Heap index index of c, with its priority at time
+        private class Candidate {
+            final AgingClass c;
+            final int index, slot;
+            final long priority;
+
+            Candidate(AgingClass c, int index, long time) {
+                this.c = c;
+                this.index = index;
+                this.slot = c.heap.at(index);
+                this.priority = priorityAt(slot, c, time);
+            }
+        }
+
+        void add(int slot, long a) {
+            AgingClass c = classAt((int) Math.floorMod(a, (long) interval));
+            detach(c);
+            key[slot] = a - c.shift;
+            c.heap.add(slot);
+            attach(c);
+        }
+
+        void poll(AgingClass c) {
+            detach(c);
+            c.heap.poll();
+            if (c.heap.isEmpty()) {
+                remove(c.slot);
+                removeLive(c);
+                release(c);
+            } else {
+                attach(c);
+            }
+        }
+
+        // Every waiting process gets contextSwitch added to its wait counter at
+        // oldTime. A process whose counter passes the interval ages once on the
+        // next tick and restarts from zero, so its class moves to the slot of
+        // that tick; the others keep their A. Those are the classes in the
+        // contextSwitch slots after oldTime, so only they are looked up.
+        void contextSwitch(long oldTime, int contextSwitch) {
+            if (contextSwitch == 0 || liveCount == 0) return;
+            int target = (int) Math.floorMod(oldTime + contextSwitch + 1, (long) interval);
+            int count = 0;
+            if (contextSwitch + 1 >= interval || contextSwitch + 1 >= liveCount) {
+                for (int i = 0; i < liveCount; i++) {
+                    AgingClass c = live[i];
+                    long r = Math.floorMod(oldTime - c.slot, (long) interval);
+                    if (r + contextSwitch > interval - 1 || c.slot == target) count = addMerging(count, c);
+                }
+            } else {
+                for (int k = 1; k <= contextSwitch + 1; k++) {
+                    AgingClass c = get((int) Math.floorMod(oldTime + k, (long) interval));
+                    if (c != null) count = addMerging(count, c);
+                }
+            }
+            AgingClass into = null;
+            for (int i = 0; i < count; i++) {
+                AgingClass c = merging[i];
+                merging[i] = null;
+                detach(c);
+                remove(c.slot);
+                removeLive(c);
+                long overflow = Math.floorMod(oldTime - c.slot, (long) interval) + contextSwitch - (interval - 1);
+                if (overflow > 0) c.shift += overflow;
+                if (into == null) {
+                    into = c;
+                } else {
+                    AgingClass small = c.heap.size() < into.heap.size() ? c : into;
+                    AgingClass big = small == c ? into : c;
+                    while (!small.heap.isEmpty()) {
+                        int slot = small.heap.poll();
+                        key[slot] = key[slot] + small.shift - big.shift;
+                        big.heap.add(slot);
+                    }
+                    release(small);
+                    into = big;
+                }
+            }
+            if (into != null) {
+                into.slot = target;
+                put(into);
+                addLive(into);
+                attach(into);
+            }
+        }
+
+        private int addMerging(int count, AgingClass c) {
+            if (count == merging.length) merging = Arrays.copyOf(merging, count * 2);
+            merging[count] = c;
+            return count + 1;
+        }
+
+        private AgingClass classAt(int slot) {
+            AgingClass c = get(slot);
+            if (c == null) {
+                c = spareCount > 0 ? spare[--spareCount] : new AgingClass();
+                c.shift = 0;
+                c.slot = slot;
+                put(c);
+                addLive(c);
+            }
+            return c;
+        }
+
+        private void release(AgingClass c) {
+            c.heap.release();
+            if (spareCount == spare.length) spare = Arrays.copyOf(spare, spareCount * 2);
+            spare[spareCount++] = c;
+        }
+
+        private void addLive(AgingClass c) {
+            if (liveCount == live.length) live = Arrays.copyOf(live, liveCount * 2);
+            c.liveIndex = liveCount;
+            live[liveCount++] = c;
+        }
+
+        private void removeLive(AgingClass c) {
+            AgingClass last = live[--liveCount];
+            live[c.liveIndex] = last;
+            last.liveIndex = c.liveIndex;
+            live[liveCount] = null;
+        }
+
+        // ---- treap of the non-empty classes ----
+
+        private void attach(AgingClass c) {
+            c.top = c.heap.peek();
+            c.a = c.shift + key[c.top];
+            c.left = c.right = null;
+            c.inTree = true;
+            root = insert(root, c);
+        }
+
+        // Must run before the class's top or shift changes, while it can still be found by its key
+        private void detach(AgingClass c) {
+            if (!c.inTree) return;
+            root = delete(root, c);
+            c.inTree = false;
+        }
+
+        private boolean keyBefore(AgingClass x, AgingClass y) {
+            return x.a != y.a ? x.a < y.a : tieBefore(x.top, y.top);
+        }
+
+        private AgingClass insert(AgingClass n, AgingClass c) {
+            if (n == null) return pull(c);
+            if (c.weight > n.weight) {
+                split(n, c);
+                return pull(c);
+            }
+            if (keyBefore(c, n)) n.left = insert(n.left, c); else n.right = insert(n.right, c);
+            return pull(n);
+        }
+
+        // Splits n around c's key into c.left and c.right
+        private void split(AgingClass n, AgingClass c) {
+            if (n == null) {
+                c.left = c.right = null;
+            } else if (keyBefore(n, c)) {
+                split(n.right, c);
+                n.right = c.left;
+                c.left = pull(n);
+            } else {
+                split(n.left, c);
+                n.left = c.right;
+                c.right = pull(n);
+            }
+        }
+
+        private AgingClass delete(AgingClass n, AgingClass c) {
+            if (n == c) return join(c.left, c.right);
+            if (keyBefore(c, n)) n.left = delete(n.left, c); else n.right = delete(n.right, c);
+            return pull(n);
+        }
+
+        private AgingClass join(AgingClass x, AgingClass y) {
+            if (x == null) return y;
+            if (y == null) return x;
+            if (x.weight > y.weight) {
+                x.right = join(x.right, y);
+                return pull(x);
+            }
+            y.left = join(x, y.left);
+            return pull(y);
+        }
+
+        private AgingClass pull(AgingClass n) {
+            n.best = n;
+            if (n.left != null && tieBefore(n.left.best.top, n.best.top)) n.best = n.left.best;
+            if (n.right != null && tieBefore(n.right.best.top, n.best.top)) n.best = n.right.best;
+            return n;
+        }
+
+        // ---- A mod interval -> class ----
+
+        private int home(int slot) {
+            return (slot * 0x9E3779B9 >>> 16) & (bySlot.length - 1);
+        }
+
+        private AgingClass get(int slot) {
+            for (int i = home(slot); bySlot[i] != null; i = (i + 1) & (bySlot.length - 1)) {
+                if (bySlot[i].slot == slot) return bySlot[i];
+            }
+            return null;
+        }
+
+        private void put(AgingClass c) {
+            if (2 * (mapped + 1) > bySlot.length) {
+                AgingClass[] old = bySlot;
+                bySlot = new AgingClass[old.length * 2];
+                for (AgingClass o : old) if (o != null) bySlot[free(o.slot)] = o;
+            }
+            bySlot[free(c.slot)] = c;
+            mapped++;
+        }
+
+        private int free(int slot) {
+            int i = home(slot);
+            while (bySlot[i] != null) i = (i + 1) & (bySlot.length - 1);
+            return i;
+        }
+
+        // Linear-probing delete: pulls later entries of the run back over the hole
+        private void remove(int slot) {
+            int mask = bySlot.length - 1;
+            int i = home(slot);
+            while (bySlot[i].slot != slot) i = (i + 1) & mask;
+            bySlot[i] = null;
+            mapped--;
+            for (int j = (i + 1) & mask; bySlot[j] != null; j = (j + 1) & mask) {
+                int h = home(bySlot[j].slot);
+                if (((j - h) & mask) >= ((j - i) & mask)) {
+                    bySlot[i] = bySlot[j];
+                    bySlot[j] = null;
+                    i = j;
+                }
+            }
+        }
+    }
+}
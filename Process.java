@@ -7,10 +7,15 @@ public class Process {
     public int remainingTime;
     public int priority;
     public int quantum;
+    // Real-time jobs: deadline is relative to arrival (0: none, a periodic job defaults to its period);
+    // period is the release interval of the task the job belongs to (0: not periodic)
+    public int deadline;
+    public int period;
 
     public int waitingTime;
     public int turnaroundTime;
     public int completionTime;
+    public int startTime = -1; // first time on the CPU, -1 until it has run
 
     public List<Integer> quantumHistory = new ArrayList<>();
 
@@ -27,6 +32,16 @@ public class Process {
     public Process copy() {
         Process p = new Process(name, arrivalTime, burstTime, priority, quantum);
         p.remainingTime = remainingTime;
+        p.startTime = startTime;
+        p.deadline = deadline;
+        p.period = period;
         return p;
     }
+
+    public boolean hasDeadline() { return deadline > 0 || period > 0; }
+
+    // Time the job has to be finished by, Long.MAX_VALUE without a deadline
+    public long absoluteDeadline() {
+        return deadline > 0 ? (long) arrivalTime + deadline : period > 0 ? (long) arrivalTime + period : Long.MAX_VALUE;
+    }
 }
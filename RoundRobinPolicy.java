@@ -0,0 +1,86 @@
+import java.util.function.IntPredicate;
+
+// Round robin, see CPUScheduler.roundRobin
+class RoundRobinPolicy implements SchedulingPolicy {
+    private final int quantum;
+    private int[] queue = new int[16];
+    private int head, size;
+    private long quantumEnd;
+
+    RoundRobinPolicy(int quantum) {
+        this.quantum = quantum;
+    }
+
+    @Override
+    public void attach(PolicyScheduler core, int capacity) {}
+
+    @Override
+    public void reset() {
+        head = size = 0;
+        quantumEnd = 0;
+    }
+
+    @Override
+    public SchedulingPolicy copy(PolicyScheduler core) {
+        RoundRobinPolicy c = new RoundRobinPolicy(quantum);
+        c.queue = queue.clone();
+        c.head = head;
+        c.size = size;
+        c.quantumEnd = quantumEnd;
+        return c;
+    }
+
+    @Override
+    public void onArrival(int slot, long time) {
+        offer(slot);
+    }
+
+    @Override
+    public int pickNext(long time) {
+        if (size == 0) return -1;
+        int slot = queue[head];
+        head = (head + 1) % queue.length;
+        size--;
+        return slot;
+    }
+
+    @Override
+    public void forEachWaiting(long time, IntPredicate visit) {
+        for (int i = 0; i < size; i++) if (!visit.test(queue[(head + i) % queue.length])) return;
+    }
+
+    @Override
+    public long onDispatch(int slot, long time) {
+        quantumEnd = time + quantum;
+        return quantumEnd;
+    }
+
+    // An expired slice goes back to the queue behind the arrivals up to its end
+    @Override
+    public long onTickBoundary(int running, long time) {
+        return quantumEnd;
+    }
+
+    @Override
+    public MetricsListener.Preemption preemptionCause(int running, long time) {
+        return MetricsListener.Preemption.QUANTUM_EXPIRED;
+    }
+
+    @Override
+    public void onPreempt(int running, long time) {
+        offer(running);
+    }
+
+    @Override
+    public boolean dispatchesEverySlice() { return true; }
+
+    private void offer(int slot) {
+        if (size == queue.length) {
+            int[] grown = new int[queue.length * 2];
+            for (int i = 0; i < size; i++) grown[i] = queue[(head + i) % queue.length];
+            queue = grown;
+            head = 0;
+        }
+        queue[(head + size++) % queue.length] = slot;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Receives the output of a {@link StreamingScheduler} as soon as it is known.
+ */
+public interface ScheduleListener {
+
+    // process starts a new entry of the execution order at time (after any context switch);
+    // startTime is already set on its first dispatch
+    default void onDispatch(Process process, int time) {}
+
+    // Timeline segment; process is the one running or being switched to, null while idle
+    default void onSegment(Process process, int start, int end, Timeline.Reason reason) {}
+
+    // The slice of process ended at time with work left, for cause; it may be picked again right away
+    default void onPreemption(Process process, int time, MetricsListener.Preemption cause) {}
+
+    // AG gave process a new quantum (0 when it finished)
+    default void onQuantumUpdate(Process process, int quantum) {}
+
+    // process finished; startTime, completionTime, waitingTime, turnaroundTime and quantumHistory are final
+    default void onCompletion(Process process) {}
+
+    // The arrival source of StreamingScheduler.subscriber() failed
+    default void onError(Throwable error) {}
+}
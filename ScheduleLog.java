@@ -0,0 +1,503 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Append-only binary log of every slice a scheduler ran: which process, from
+ * when to when, why the slice ended (completion or a
+ * {@link MetricsListener.Preemption} cause), whether it started a new
+ * execution order entry and the quantum AG gave the process afterwards.
+ * The {@link Writer} is a {@link ScheduleListener}, so any streaming
+ * scheduler logs while it runs and nothing of the schedule is kept in memory.
+ * The log is read back through memory mapping, and a sparse index over the
+ * slice start times answers "what ran between t1 and t2" by decoding one
+ * block of slices before the range and the range itself.
+ *
+ * Layout, little-endian; varints are LEB128, signed ones zigzag-encoded:
+ *   header   magic "SCHL", version, slices (long), processes (long), index offset (long),
+ *            process table offset (long), padding to 48 bytes
+ *   records  process: 0xFF, id, arrival, burst, priority (signed), quantum, name length, UTF-8 name
+ *            slice:   (end code << 2 | has quantum << 1 | dispatched), process id,
+ *                     start - end of the previous slice, length[, new quantum]
+ *            end code 0 is completion, 1 + ordinal a preemption cause
+ *   index    one entry per BLOCK slices: first start, end of the slice before, offset, slice number (longs)
+ *   table    offset of the process record of every process id (long)
+ *
+ * Process ids are dense, in the order processes first ran. A process record
+ * always comes before the first slice of its process.
+ */
+public class ScheduleLog {
+
+    private static final int MAGIC = 0x4C484353; // "SCHL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 48;
+    private static final int BLOCK = 1024;
+    private static final int INDEX_ENTRY = 32;
+    private static final int PROCESS = 0xFF;
+    private static final MetricsListener.Preemption[] CAUSES = MetricsListener.Preemption.values();
+
+    // Each mapping stays below the 2 GB limit of a single MappedByteBuffer and holds whole blocks
+    private static final long MAP_LIMIT = 1L << 30;
+
+    /**
+     * Logs the schedule it is told about to a file. The file is complete once
+     * the writer is closed; until then only the records are on disk.
+     */
+    public static class Writer implements ScheduleListener, Closeable {
+        private final FileChannel out;
+        private final Path tableSpill;
+        private final FileChannel table;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer tableBuf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        // INDEX_ENTRY / 8 longs per block
+        private long[] index = new long[64];
+        private int indexLength;
+        private long flushed = HEADER; // file offset of buf's first byte
+
+        // Ids of the processes in the system that have run
+        private final IdentityHashMap<Process, Long> ids = new IdentityHashMap<>();
+        private long processes, slices;
+
+        // Slice in progress
+        private Process open;
+        private long openStart, previousEnd;
+        private boolean dispatched;
+        private int newQuantum = -1;
+
+        public Writer(Path path) throws IOException {
+            out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            tableSpill = Files.createTempFile(path.toAbsolutePath().getParent(), "processes", ".tmp");
+            table = FileChannel.open(tableSpill, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            out.position(HEADER);
+        }
+
+        @Override
+        public void onDispatch(Process process, int time) {
+            idOf(process);
+            dispatched = true;
+        }
+
+        @Override
+        public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+            if (reason == Timeline.Reason.RUN && open == null) {
+                open = process;
+                openStart = start;
+            }
+        }
+
+        @Override
+        public void onQuantumUpdate(Process process, int quantum) {
+            newQuantum = quantum;
+        }
+
+        @Override
+        public void onPreemption(Process process, int time, MetricsListener.Preemption cause) {
+            slice(process, time, 1 + cause.ordinal());
+        }
+
+        @Override
+        public void onCompletion(Process process) {
+            slice(process, process.completionTime, 0);
+            ids.remove(process);
+        }
+
+        // Closes the slice of process at end; a slice that never got a tick starts at end
+        private void slice(Process process, long end, int code) {
+            long start = open == process ? openStart : end;
+            long id = idOf(process);
+            if (slices % BLOCK == 0) {
+                if (indexLength == index.length) index = Arrays.copyOf(index, indexLength * 2);
+                index[indexLength++] = start;
+                index[indexLength++] = previousEnd;
+                index[indexLength++] = position();
+                index[indexLength++] = slices;
+            }
+            try {
+                ensure(1 + 4 * 10);
+                buf.put((byte) (code << 2 | (newQuantum >= 0 ? 2 : 0) | (dispatched ? 1 : 0)));
+                putVarint(id);
+                putVarint(start - previousEnd);
+                putVarint(end - start);
+                if (newQuantum >= 0) putVarint(newQuantum);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            slices++;
+            previousEnd = end;
+            open = null;
+            dispatched = false;
+            newQuantum = -1;
+        }
+
+        private long idOf(Process p) {
+            Long id = ids.get(p);
+            if (id != null) return id;
+            id = processes++;
+            ids.put(p, id);
+            byte[] name = p.name.getBytes(StandardCharsets.UTF_8);
+            try {
+                if (!tableBuf.hasRemaining()) drain(tableBuf, table);
+                tableBuf.putLong(position());
+                ensure(1 + 6 * 10);
+                buf.put((byte) PROCESS);
+                putVarint(id);
+                putVarint(p.arrivalTime);
+                putVarint(p.burstTime);
+                long priority = p.priority;
+                putVarint((priority << 1) ^ (priority >> 63));
+                putVarint(p.quantum);
+                putVarint(name.length);
+                for (int off = 0; off < name.length; ) {
+                    ensure(1);
+                    int n = Math.min(buf.remaining(), name.length - off);
+                    buf.put(name, off, n);
+                    off += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return id;
+        }
+
+        private long position() { return flushed + buf.position(); }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flushed += buf.position();
+                drain(buf, out);
+            }
+        }
+
+        private void putVarint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        public long sliceCount() { return slices; }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushed += buf.position();
+                drain(buf, out);
+                drain(tableBuf, table);
+                long indexStart = out.position();
+                ByteBuffer entries = ByteBuffer.allocate(indexLength * 8).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < indexLength; i++) entries.putLong(index[i]);
+                entries.flip();
+                while (entries.hasRemaining()) out.write(entries);
+                long tableStart = out.position();
+                for (long done = 0, size = table.size(); done < size; ) {
+                    done += table.transferTo(done, size - done, out);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(slices).putLong(processes)
+                      .putLong(indexStart).putLong(tableStart).flip();
+                out.write(header, 0);
+            } finally {
+                out.close();
+                table.close();
+                Files.deleteIfExists(tableSpill);
+            }
+        }
+    }
+
+    private final long slices, processes;
+    private final long[] firstStart, previousEnd, blockOffset, firstSlice;
+    // Mappings of the records region, each starting at chunkStart[i] (a block offset, or the header's end)
+    private final long[] chunkStart;
+    private final ByteBuffer[] chunks;
+    private final ByteBuffer[] table;
+    private static final int TABLE_PER_MAP = (int) (MAP_LIMIT / 8);
+
+    private ScheduleLog(long slices, long processes, long[][] index, long[] chunkStart, ByteBuffer[] chunks, ByteBuffer[] table) {
+        this.slices = slices;
+        this.processes = processes;
+        this.firstStart = index[0];
+        this.previousEnd = index[1];
+        this.blockOffset = index[2];
+        this.firstSlice = index[3];
+        this.chunkStart = chunkStart;
+        this.chunks = chunks;
+        this.table = table;
+    }
+
+    public static ScheduleLog open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER) throw new IOException("Not a schedule log: " + path);
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a schedule log: " + path);
+            if (header.getInt(4) != VERSION) throw new IOException("Unsupported schedule log version " + header.getInt(4) + ": " + path);
+            long slices = header.getLong(8), processes = header.getLong(16);
+            long indexStart = header.getLong(24), tableStart = header.getLong(32);
+            if (indexStart == 0) throw new IOException("Schedule log was not closed: " + path);
+
+            int blocks = (int) ((tableStart - indexStart) / INDEX_ENTRY);
+            long[][] index = new long[4][blocks];
+            ByteBuffer entries = ch.map(FileChannel.MapMode.READ_ONLY, indexStart, tableStart - indexStart).order(ByteOrder.LITTLE_ENDIAN);
+            for (int b = 0; b < blocks; b++) {
+                for (int f = 0; f < 4; f++) index[f][b] = entries.getLong(b * INDEX_ENTRY + f * 8);
+            }
+
+            // Cut the records into mappings at block starts
+            List<Long> cuts = new ArrayList<>();
+            cuts.add((long) HEADER);
+            for (int b = 1; b < blocks; b++) {
+                if (index[2][b] - cuts.get(cuts.size() - 1) > MAP_LIMIT && index[2][b - 1] > cuts.get(cuts.size() - 1)) {
+                    cuts.add(index[2][b - 1]);
+                }
+            }
+            long[] chunkStart = new long[cuts.size()];
+            ByteBuffer[] chunks = new ByteBuffer[cuts.size()];
+            for (int i = 0; i < chunks.length; i++) {
+                chunkStart[i] = cuts.get(i);
+                long end = i + 1 < chunks.length ? cuts.get(i + 1) : indexStart;
+                chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, chunkStart[i], end - chunkStart[i]);
+            }
+
+            ByteBuffer[] table = new ByteBuffer[(int) ((processes + TABLE_PER_MAP - 1) / TABLE_PER_MAP)];
+            for (int m = 0; m < table.length; m++) {
+                long first = (long) m * TABLE_PER_MAP;
+                table[m] = ch.map(FileChannel.MapMode.READ_ONLY, tableStart + first * 8, Math.min(TABLE_PER_MAP, processes - first) * 8)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new ScheduleLog(slices, processes, index, chunkStart, chunks, table);
+        }
+    }
+
+    /**
+     * Runs arrivals (in arrivalTime order) through algorithm and logs the
+     * schedule to path. Returns the number of slices logged.
+     */
+    public static long record(Algorithm algorithm, SchedulerConfig config, Iterator<? extends Process> arrivals, Path path)
+            throws IOException {
+        try (Writer log = new Writer(path)) {
+            algorithm.streaming(config, log).keepQuantumHistory(false).run(arrivals);
+            return log.sliceCount();
+        }
+    }
+
+    public long sliceCount() { return slices; }
+
+    public long processCount() { return processes; }
+
+    /**
+     * Reads forward from the slices overlapping [from, to): the first slice
+     * returned is the one running at from (or the first starting after it),
+     * the last one starts before to. Zero-length slices inside the range are
+     * included.
+     */
+    public Cursor between(long from, long to) {
+        // Last block starting strictly before from; the slice running at from starts before from
+        int lo = 0, hi = firstStart.length - 1, block = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firstStart[mid] < from) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return new Cursor(block, from, to);
+    }
+
+    // Every slice in order
+    public Cursor slices() {
+        return new Cursor(0, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // Iterates slices; the accessors describe the slice of the last next() that returned true
+    public class Cursor {
+        private final long from, to;
+        private int chunk;
+        private ByteBuffer in;
+        private long remaining, previousEnd;
+        private boolean done;
+
+        private long process, start, end, number;
+        private int code, quantum;
+        private boolean dispatched;
+
+        Cursor(int block, long from, long to) {
+            this.from = from;
+            this.to = to;
+            if (firstStart.length == 0) {
+                done = true;
+                return;
+            }
+            remaining = slices - firstSlice[block];
+            number = firstSlice[block] - 1;
+            previousEnd = ScheduleLog.this.previousEnd[block];
+            seek(blockOffset[block]);
+        }
+
+        public boolean next() {
+            while (!done) {
+                if (remaining == 0) {
+                    done = true;
+                    break;
+                }
+                if (!in.hasRemaining()) in = chunks[++chunk].duplicate();
+                int head = in.get() & 0xFF;
+                if (head == PROCESS) {
+                    skipProcess();
+                    continue;
+                }
+                remaining--;
+                number++;
+                code = head >>> 2;
+                dispatched = (head & 1) != 0;
+                process = readVarint(in);
+                start = previousEnd + readVarint(in);
+                end = start + readVarint(in);
+                quantum = (head & 2) != 0 ? (int) readVarint(in) : -1;
+                previousEnd = end;
+                if (start >= to) {
+                    done = true;
+                    break;
+                }
+                if (end > from || start >= from) return true;
+            }
+            return false;
+        }
+
+        private void seek(long offset) {
+            chunk = chunkAt(offset);
+            in = chunks[chunk].duplicate();
+            in.position((int) (offset - chunkStart[chunk]));
+        }
+
+        private void skipProcess() {
+            for (int i = 0; i < 5; i++) readVarint(in);
+            int length = (int) readVarint(in);
+            in.position(in.position() + length);
+        }
+
+        // Slice number in the whole log, from 0
+        public long number() { return number; }
+
+        public long process() { return process; }
+
+        public String name() { return ScheduleLog.this.name(process); }
+
+        public long start() { return start; }
+
+        public long end() { return end; }
+
+        public long length() { return end - start; }
+
+        public boolean completed() { return code == 0; }
+
+        // Why the slice ended with work left; null if the process completed
+        public MetricsListener.Preemption cause() { return code == 0 ? null : CAUSES[code - 1]; }
+
+        // true when the slice started a new execution order entry
+        public boolean dispatched() { return dispatched; }
+
+        // AG's new quantum for the process after this slice (0 on completion), -1 if it did not change
+        public int quantum() { return quantum; }
+    }
+
+    // ---- processes ----
+
+    public String name(long id) {
+        ByteBuffer b = processRecord(id);
+        for (int i = 0; i < 5; i++) readVarint(b);
+        byte[] bytes = new byte[(int) readVarint(b)];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int arrivalTime(long id) { return (int) processField(id, 1); }
+
+    public int burstTime(long id) { return (int) processField(id, 2); }
+
+    public int priority(long id) {
+        long z = processField(id, 3);
+        return (int) ((z >>> 1) ^ -(z & 1));
+    }
+
+    // Quantum the process first ran with
+    public int quantum(long id) { return (int) processField(id, 4); }
+
+    private long processField(long id, int field) {
+        ByteBuffer b = processRecord(id);
+        for (int i = 0; i < field; i++) readVarint(b);
+        return readVarint(b);
+    }
+
+    // Positioned after the record marker
+    private ByteBuffer processRecord(long id) {
+        Objects.checkIndex(id, processes);
+        long offset = table[(int) (id / TABLE_PER_MAP)].getLong((int) (id % TABLE_PER_MAP) * 8);
+        int c = chunkAt(offset);
+        ByteBuffer b = chunks[c].duplicate();
+        b.position((int) (offset - chunkStart[c]) + 1);
+        return b;
+    }
+
+    private int chunkAt(long offset) {
+        int i = Arrays.binarySearch(chunkStart, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private static long readVarint(ByteBuffer b) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte x = b.get();
+            v |= (long) (x & 0x7F) << shift;
+            if (x >= 0) return v;
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel ch) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) ch.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Usage: java ScheduleLog --workload w.trace|w.json --algorithm ag --out run.schedlog
+     *        [--rr-quantum 2] [--context-switch 0] [--aging 5]
+     *    or: java ScheduleLog --log run.schedlog --from t1 --to t2
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        if (options.containsKey("log")) {
+            ScheduleLog log = open(Paths.get(options.get("log")));
+            Cursor c = log.between(Long.parseLong(options.getOrDefault("from", "0")),
+                    Long.parseLong(options.getOrDefault("to", String.valueOf(Long.MAX_VALUE))));
+            while (c.next()) {
+                System.out.println(c.start() + "-" + c.end() + " " + c.name() + (c.dispatched() ? "" : " (continued)")
+                        + " " + (c.completed() ? "completed" : c.cause()) + (c.quantum() >= 0 ? " quantum=" + c.quantum() : ""));
+            }
+            return;
+        }
+        Algorithm algorithm = Algorithm.parse(options.getOrDefault("algorithm", "ag"));
+        SchedulerConfig config = new SchedulerConfig(
+                Integer.parseInt(options.getOrDefault("rr-quantum", "2")),
+                Integer.parseInt(options.getOrDefault("context-switch", "0")),
+                Integer.parseInt(options.getOrDefault("aging", "5")));
+        Path workload = Paths.get(options.get("workload"));
+        Path out = Paths.get(options.getOrDefault("out", workload + ".schedlog"));
+        Iterator<Process> arrivals;
+        if (workload.toString().endsWith(".json")) {
+            // Test files are not necessarily in arrival order
+            List<Process> processes = WorkloadReader.readAll(workload, 4);
+            processes.sort(Comparator.comparingInt(p -> p.arrivalTime));
+            arrivals = processes.iterator();
+        } else {
+            arrivals = TraceFile.open(workload).arrivals();
+        }
+        long start = System.nanoTime();
+        long logged = record(algorithm, config, arrivals, out);
+        System.out.printf("%d slices logged to %s (%d bytes) in %.1f s%n", logged, out, Files.size(out), (System.nanoTime() - start) / 1e9);
+    }
+}
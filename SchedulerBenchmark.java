@@ -0,0 +1,141 @@
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Throughput and allocation benchmark for all four schedulers on synthetic
+ * workloads. Every combination of process count, burst distribution, mean
+ * arrival gap and context-switch cost is run through the tick-based
+ * reference, the event-driven engines and a reused {@link SchedulerSession},
+ * after a warmup, and reported as ops/s, allocated bytes per op and GC activity.
+ *
+ * Usage: java SchedulerBenchmark [--counts 10,1000,100000] [--dists uniform,exponential,pareto]
+ *        [--gaps 0.5,5] [--cs 0,2] [--algorithms sjf,rr,priority,ag] [--engines reference,event,session]
+ *        [--warmup 3] [--iterations 5] [--reference-limit 20000] [--seed 42]
+ *
+ * The tick-based reference is O(totalBurst * n), so it is skipped above
+ * --reference-limit processes.
+ */
+public class SchedulerBenchmark {
+
+    private static final double MEAN_BURST = 10;
+
+    // Results are folded in here so the JIT cannot drop the runs
+    static volatile double blackhole;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        int[] counts = ints(options.getOrDefault("counts", "10,1000,10000,100000,1000000"));
+        List<WorkloadGenerator.Distribution> dists = new ArrayList<>();
+        for (String d : options.getOrDefault("dists", "uniform,exponential,pareto").split(",")) {
+            dists.add(WorkloadGenerator.Distribution.valueOf(d.trim().toUpperCase()));
+        }
+        double[] gaps = doubles(options.getOrDefault("gaps", "0.5,5,20"));
+        int[] switches = ints(options.getOrDefault("cs", "0,2"));
+        List<Algorithm> algorithms = new ArrayList<>();
+        for (String a : options.getOrDefault("algorithms", "sjf,rr,priority,ag").split(",")) algorithms.add(Algorithm.parse(a));
+        List<String> engines = Arrays.asList(options.getOrDefault("engines", "reference,event,session").split(","));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        int referenceLimit = Integer.parseInt(options.getOrDefault("reference-limit", "20000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        System.out.printf("%-9s %-9s %8s %-11s %6s %3s %12s %12s %14s %6s%n",
+                "algorithm", "engine", "count", "bursts", "gap", "cs", "ops/s", "ms/op", "alloc B/op", "gcs");
+
+        for (int count : counts) {
+            for (WorkloadGenerator.Distribution dist : dists) {
+                for (double gap : gaps) {
+                    List<Process> workload = WorkloadGenerator.generate(count, dist, MEAN_BURST, gap, seed);
+                    for (int cs : switches) {
+                        SchedulerConfig config = new SchedulerConfig(2, cs, 5);
+                        for (Algorithm algorithm : algorithms) {
+                            for (String e : engines) {
+                                String engine = e.trim().toLowerCase();
+                                if (engine.equals("reference") && count > referenceLimit) continue;
+                                Measurement m = measure(algorithm, engine, workload, config, warmup, iterations);
+                                System.out.printf("%-9s %-9s %8d %-11s %6.1f %3d %12.2f %12.3f %14d %6d%n",
+                                        algorithm, engine, count,
+                                        dist.name().toLowerCase(), gap, cs,
+                                        m.opsPerSecond(), m.millisPerOp(), m.bytesPerOp(), m.gcCount);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static class Measurement {
+        int ops;
+        long nanos;
+        long bytes;
+        long gcCount;
+
+        double opsPerSecond() { return ops / (nanos / 1e9); }
+
+        double millisPerOp() { return nanos / 1e6 / ops; }
+
+        long bytesPerOp() { return bytes / ops; }
+    }
+
+    // engine is reference, event or session; a session is loaded once and reused for every run
+    static Measurement measure(Algorithm algorithm, String engine, List<Process> workload,
+                               SchedulerConfig config, int warmup, int iterations) {
+        SchedulerSession session = engine.equals("session") ? new SchedulerSession().load(workload) : null;
+        for (int i = 0; i < warmup; i++) run(algorithm, engine, session, workload, config);
+
+        long threadId = Thread.currentThread().getId();
+        long gcBefore = gcCount();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        double sink = 0;
+        for (int i = 0; i < iterations; i++) sink += run(algorithm, engine, session, workload, config);
+
+        Measurement m = new Measurement();
+        m.nanos = System.nanoTime() - start;
+        m.bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        m.gcCount = gcCount() - gcBefore;
+        m.ops = iterations;
+        blackhole = sink;
+        return m;
+    }
+
+    // Average waiting time of one run
+    private static double run(Algorithm algorithm, String engine, SchedulerSession session, List<Process> workload,
+                              SchedulerConfig config) {
+        switch (engine) {
+            case "reference": return algorithm.run(workload, config).averageWaitingTime;
+            case "event": return algorithm.runEventDriven(workload, config).averageWaitingTime;
+            case "session": return session.run(algorithm, config).averageWaitingTime();
+            default: throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionCount());
+        return total;
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for --" + key);
+            options.put(key, args[++i]);
+        }
+        return options;
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static double[] doubles(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Command-line runner: schedules workload files with the chosen algorithms
+ * and prints one line per workload and algorithm. Settings come from each
+ * JSON input (contextSwitch, rrQuantum, agingInterval) unless given on the
+ * command line; traces use the defaults.
+ *
+ * With --batch it reads one job per line from stdin in the same syntax, on
+ * top of the options given on the command line, and answers each with its
+ * result lines and an empty line, flushed, so a script can keep one JVM
+ * busy instead of starting thousands. Failures of a batch job are reported
+ * as its result and the batch carries on.
+ *
+ * Startup is what small runs pay for, so this path avoids org.json,
+ * reflection and String.format; build-cli.sh packs it into a jar with a
+ * class-data-sharing archive of the classes a run loads.
+ *
+ * Usage: java SchedulerCli [options] workload.json|workload.trace|- ...
+ *        java SchedulerCli --batch [options]
+ *
+ *   --algorithm sjf,rr,priority,ag   any of sjf, rr, priority, ag, mlfq, cfs, edf, rm
+ *   --rr-quantum N --context-switch N --aging N
+ *   --quantum 4                      quantum of JSON processes without one
+ *   --format text|json               json prints one object per line
+ *   --order true|false               print the execution order (and AG quantum histories)
+ */
+public class SchedulerCli {
+
+    static final class Options {
+        List<Algorithm> algorithms = Arrays.asList(Algorithm.SJF, Algorithm.RR, Algorithm.PRIORITY, Algorithm.AG);
+        // null: from the workload
+        Integer rrQuantum, contextSwitch, aging;
+        int quantum = 4;
+        boolean json;
+        boolean order = true;
+        boolean batch;
+        List<String> files = new ArrayList<>();
+
+        Options copy() {
+            Options o = new Options();
+            o.algorithms = algorithms;
+            o.rrQuantum = rrQuantum;
+            o.contextSwitch = contextSwitch;
+            o.aging = aging;
+            o.quantum = quantum;
+            o.json = json;
+            o.order = order;
+            return o;
+        }
+    }
+
+    // args on top of base; files are never inherited
+    static Options parse(String[] args, Options base) {
+        Options o = base.copy();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--batch")) {
+                o.batch = true;
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                o.files.add(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "--algorithm":
+                case "--algorithms":
+                    List<Algorithm> algorithms = new ArrayList<>();
+                    for (String a : value.split(",")) algorithms.add(Algorithm.parse(a));
+                    o.algorithms = algorithms;
+                    break;
+                case "--rr-quantum": o.rrQuantum = Integer.parseInt(value); break;
+                case "--context-switch": o.contextSwitch = Integer.parseInt(value); break;
+                case "--aging": o.aging = Integer.parseInt(value); break;
+                case "--quantum": o.quantum = Integer.parseInt(value); break;
+                case "--format":
+                    if (!value.equals("text") && !value.equals("json")) throw new IllegalArgumentException("Unknown format: " + value);
+                    o.json = value.equals("json");
+                    break;
+                case "--order": o.order = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        return o;
+    }
+
+    // Runs every file with every algorithm; returns false if a file could not be run
+    static boolean run(Options o, PrintStream out) {
+        boolean ok = true;
+        for (String file : o.files) {
+            try {
+                List<Process> processes;
+                SchedulerConfig config;
+                if (file.endsWith(".trace")) {
+                    processes = TraceFile.open(Paths.get(file)).toList();
+                    config = new SchedulerConfig();
+                } else {
+                    processes = new ArrayList<>();
+                    // Closed even when the workload is malformed; stdin (a null resource) stays open
+                    try (InputStream owned = file.equals("-") ? null : Files.newInputStream(Paths.get(file))) {
+                        WorkloadReader reader = new WorkloadReader(owned != null ? owned : System.in, o.quantum);
+                        while (reader.hasNext()) processes.add(reader.next());
+                        config = reader.config();
+                    }
+                }
+                if (o.rrQuantum != null) config.rrQuantum = o.rrQuantum;
+                if (o.contextSwitch != null) config.contextSwitch = o.contextSwitch;
+                if (o.aging != null) config.agingInterval = o.aging;
+                for (Algorithm algorithm : o.algorithms) {
+                    print(o, file, algorithm, algorithm.runEventDriven(processes, config), out);
+                }
+            } catch (IOException | RuntimeException e) {
+                ok = false;
+                String message = e instanceof NoSuchFileException ? "no such file" : String.valueOf(e.getMessage());
+                if (o.json) {
+                    out.println(new StringBuilder("{\"workload\": ").append(quote(file)).append(", \"error\": ").append(quote(message)).append('}'));
+                } else {
+                    out.println(new StringBuilder("error: ").append(file).append(": ").append(message));
+                }
+            }
+        }
+        return ok;
+    }
+
+    private static void print(Options o, String file, Algorithm algorithm, SchedulerResult r, PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        if (o.json) {
+            sb.append("{\"workload\": ").append(quote(file)).append(", \"algorithm\": \"").append(algorithm)
+              .append("\", \"averageWaitingTime\": ").append(r.averageWaitingTime)
+              .append(", \"averageTurnaroundTime\": ").append(r.averageTurnaroundTime)
+              .append(", \"averageResponseTime\": ").append(r.averageResponseTime);
+            if (!r.lateness.isEmpty()) {
+                sb.append(", \"deadlineMisses\": ").append(r.deadlineMisses).append(", \"maxLateness\": ").append(r.maxLateness);
+            }
+            if (o.order) {
+                sb.append(", \"executionOrder\": [");
+                for (int i = 0; i < r.executionOrder.size(); i++) {
+                    if (i > 0) sb.append(", ");
+                    sb.append(quote(r.executionOrder.get(i)));
+                }
+                sb.append(']');
+                if (algorithm == Algorithm.AG) {
+                    sb.append(", \"quantumHistory\": {");
+                    boolean first = true;
+                    for (Map.Entry<String, List<Integer>> h : new TreeMap<>(r.quantumHistory).entrySet()) {
+                        if (!first) sb.append(", ");
+                        first = false;
+                        sb.append(quote(h.getKey())).append(": ").append(h.getValue());
+                    }
+                    sb.append('}');
+                }
+            }
+            sb.append('}');
+        } else {
+            sb.append(file).append(' ').append(algorithm)
+              .append(" waiting=").append(r.averageWaitingTime)
+              .append(" turnaround=").append(r.averageTurnaroundTime)
+              .append(" response=").append(r.averageResponseTime);
+            if (!r.lateness.isEmpty()) sb.append(" misses=").append(r.deadlineMisses).append(" maxLateness=").append(r.maxLateness);
+            if (o.order) {
+                sb.append(" order=").append(String.join(",", r.executionOrder));
+                if (algorithm == Algorithm.AG) sb.append(" quanta=").append(new TreeMap<>(r.quantumHistory));
+            }
+        }
+        out.println(sb);
+    }
+
+    // Whether a job asks for json output, for reporting a job that does not parse; base when it does not say
+    private static boolean json(String[] args, boolean base) {
+        boolean json = base;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--format") && (args[i + 1].equals("json") || args[i + 1].equals("text"))) {
+                json = args[++i].equals("json");
+            }
+        }
+        return json;
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+        Options options;
+        try {
+            options = parse(args, new Options());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (!options.batch) {
+            if (options.files.isEmpty()) {
+                System.err.println("Usage: java SchedulerCli [--algorithm sjf,rr,priority,ag] [options] workload.json|workload.trace|- ...");
+                System.exit(2);
+            }
+            boolean ok = run(options, out);
+            out.flush();
+            if (!ok) System.exit(1);
+            return;
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] words = line.split("\\s+");
+            try {
+                Options job = parse(words, options);
+                if (job.files.contains("-")) throw new IllegalArgumentException("stdin holds the jobs in batch mode");
+                run(job, out);
+            } catch (IllegalArgumentException e) {
+                out.println(json(words, options.json) ? "{\"error\": " + quote(e.getMessage()) + "}" : "error: " + e.getMessage());
+            }
+            out.println();
+            out.flush();
+        }
+        out.flush();
+    }
+}
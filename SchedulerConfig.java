@@ -0,0 +1,22 @@
+public class SchedulerConfig {
+    public int rrQuantum = 2;
+    public int contextSwitch = 0;
+    public int agingInterval = 5;
+    public int[] mlfqQuanta = {2, 4, 8};
+    public int mlfqBoostInterval = 100;
+    public int cfsTargetLatency = 24;
+    public int cfsMinGranularity = 3;
+
+    public SchedulerConfig() {}
+
+    public SchedulerConfig(int rrQuantum, int contextSwitch, int agingInterval) {
+        this.rrQuantum = rrQuantum;
+        this.contextSwitch = contextSwitch;
+        this.agingInterval = agingInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "rrQuantum=" + rrQuantum + ", contextSwitch=" + contextSwitch + ", agingInterval=" + agingInterval;
+    }
+}
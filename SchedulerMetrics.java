@@ -0,0 +1,95 @@
+/**
+ * MetricsListener that keeps counters and histograms for one or more runs.
+ * All storage is allocated up front; recording never allocates.
+ */
+public class SchedulerMetrics implements MetricsListener {
+
+    private static final Preemption[] CAUSES = Preemption.values();
+
+    public long contextSwitches;
+    public long contextSwitchTime;
+    public long idleTicks;
+    public long agingPromotions;
+    private final long[] preemptions = new long[CAUSES.length];
+
+    public final Histogram readyQueueDepth = new Histogram();
+    public final Histogram waitingTime = new Histogram();
+    public final Histogram responseTime = new Histogram();
+    public final Histogram turnaroundTime = new Histogram();
+    public final Histogram sliceLength = new Histogram();
+
+    @Override
+    public void onContextSwitch(int time, int cost) {
+        contextSwitches++;
+        contextSwitchTime += cost;
+    }
+
+    @Override
+    public void onPreemption(Preemption cause, int time) {
+        preemptions[cause.ordinal()]++;
+    }
+
+    @Override
+    public void onIdle(int ticks) {
+        idleTicks += ticks;
+    }
+
+    @Override
+    public void onReadyQueue(int depth) {
+        readyQueueDepth.record(depth);
+    }
+
+    @Override
+    public void onAgingPromotion(int time) {
+        agingPromotions++;
+    }
+
+    @Override
+    public void onSlice(int length) {
+        sliceLength.record(length);
+    }
+
+    @Override
+    public void onResponse(int time) {
+        responseTime.record(time);
+    }
+
+    @Override
+    public void onCompletion(int waiting, int turnaround) {
+        waitingTime.record(waiting);
+        turnaroundTime.record(turnaround);
+    }
+
+    public long preemptions(Preemption cause) { return preemptions[cause.ordinal()]; }
+
+    public long preemptions() {
+        long total = 0;
+        for (long p : preemptions) total += p;
+        return total;
+    }
+
+    public void reset() {
+        contextSwitches = contextSwitchTime = idleTicks = agingPromotions = 0;
+        java.util.Arrays.fill(preemptions, 0);
+        readyQueueDepth.reset();
+        waitingTime.reset();
+        responseTime.reset();
+        turnaroundTime.reset();
+        sliceLength.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("contextSwitches=").append(contextSwitches).append(" (").append(contextSwitchTime).append(" ticks)")
+          .append(" idleTicks=").append(idleTicks).append(" agingPromotions=").append(agingPromotions)
+          .append("\npreemptions:");
+        for (Preemption cause : CAUSES) sb.append(' ').append(cause).append('=').append(preemptions[cause.ordinal()]);
+        sb.append("\nreadyQueueDepth ").append(readyQueueDepth)
+          .append("\nwaitingTime     ").append(waitingTime)
+          .append("\nresponseTime    ").append(responseTime)
+          .append("\nturnaroundTime  ").append(turnaroundTime)
+          .append("\nsliceLength     ").append(sliceLength);
+        return sb.toString();
+    }
+}
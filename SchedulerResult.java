@@ -4,8 +4,28 @@ public class SchedulerResult {
     public List<String> executionOrder = new ArrayList<>();
     public Map<String, Integer> waitingTimes = new HashMap<>();
     public Map<String, Integer> turnaroundTimes = new HashMap<>();
+    // First dispatch minus arrival
+    public Map<String, Integer> responseTimes = new HashMap<>();
     public double averageWaitingTime;
     public double averageTurnaroundTime;
+    public double averageResponseTime;
 
     public Map<String, List<Integer>> quantumHistory = new HashMap<>();
+
+    // Processes with a deadline only: completion minus absolute deadline, negative when early
+    public Map<String, Integer> lateness = new HashMap<>();
+    public int deadlineMisses;
+    public int maxLateness;
+
+    // Who ran when, including context switches and idle time
+    public Timeline timeline = new Timeline();
+
+    // Counts a job that finished at completion against its absolute deadline; Long.MAX_VALUE (no deadline) is skipped
+    public void addLateness(String name, long completion, long absoluteDeadline) {
+        if (absoluteDeadline == Long.MAX_VALUE) return;
+        int late = (int) (completion - absoluteDeadline);
+        maxLateness = lateness.isEmpty() ? late : Math.max(maxLateness, late);
+        lateness.put(name, late);
+        if (late > 0) deadlineMisses++;
+    }
 }
@@ -0,0 +1,322 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Long-running online scheduler: one {@link StreamingScheduler} behind a
+ * small HTTP API. Arrivals are submitted while it runs, time moves forward
+ * either on request (simulated time) or with the wall clock, and the ready
+ * queue and per-process metrics can be queried at any point.
+ *
+ *   POST /submit          body in the test-case schema, {"input": {"processes": [...]}};
+ *                         a batch is submitted in body order
+ *   POST /advance?to=T    simulate everything before time T (simulated time only)
+ *   GET  /state[?limit=N] clock, running process, the first N (default 100) waiting processes
+ *                         in ready-queue order, counts and averages
+ *   GET  /process?name=P  one process, in the system or recently finished
+ *   GET  /stats           SchedulerStats of everything finished so far
+ *
+ * With simulated time, arrivals must not go back before the latest arrival
+ * or advance. With --tick-ms the clock is wall time in ticks of that length
+ * since start; the scheduler follows it on every tick and a submitted
+ * process arrives no earlier than the current tick. One dated after the
+ * current tick is held back until its tick comes, without moving the
+ * clock, and shows as pending until then.
+ *
+ * The scheduler is single-threaded; requests are parsed on the server's
+ * threads and then applied under one lock, so large batches are what get
+ * the submission rate up, not many small requests.
+ *
+ * Usage: java SchedulerService [--algorithm ag] [--port 8080] [--threads 4] [--tick-ms 0]
+ *        [--retain 100000] [--rr-quantum 2] [--context-switch 0] [--aging 5]
+ */
+public class SchedulerService implements ScheduleListener {
+
+    // Records without a quantum get the same default as Main's non-AG tests
+    private static final int DEFAULT_QUANTUM = 4;
+
+    private final Algorithm algorithm;
+    private final StreamingScheduler scheduler;
+    private final int tickMillis; // 0: simulated time
+    private final long startNanos = System.nanoTime();
+
+    // Latest arrival or advance (the current tick with --tick-ms); nothing before it can arrive any more
+    private long clock;
+    private final Map<String, Process> inSystem = new HashMap<>();
+    // Wall-clock mode: submissions dated after clock, by arrival and then submission order
+    private final TreeMap<Integer, List<Process>> future = new TreeMap<>();
+    private int futureCount;
+    // The most recently finished processes, oldest dropped first
+    private final Map<String, Process> finished;
+    private final SchedulerStats stats = new SchedulerStats(100);
+
+    private HttpServer server;
+    private ScheduledExecutorService ticker;
+
+    public SchedulerService(Algorithm algorithm, SchedulerConfig config, int tickMillis, int retain) {
+        this.algorithm = algorithm;
+        this.scheduler = algorithm.streaming(config, this);
+        this.tickMillis = tickMillis;
+        this.finished = new LinkedHashMap<String, Process>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Process> eldest) {
+                return size() > retain;
+            }
+        };
+    }
+
+    /**
+     * Submits batch in order and returns how many were accepted. Stops at the
+     * first process that cannot be admitted (already in the system, or
+     * arriving in the past with simulated time) and throws with the count.
+     */
+    public synchronized int submit(List<Process> batch) {
+        if (tickMillis > 0) follow(wallTick());
+        int accepted = 0;
+        for (Process p : batch) {
+            if (inSystem.containsKey(p.name)) {
+                throw new IllegalArgumentException(accepted + " accepted; " + p.name + " is already in the system");
+            }
+            if (tickMillis > 0) {
+                p.arrivalTime = (int) Math.max(p.arrivalTime, clock);
+                inSystem.put(p.name, p);
+                if (p.arrivalTime > clock) {
+                    future.computeIfAbsent(p.arrivalTime, t -> new ArrayList<>()).add(p);
+                    futureCount++;
+                } else {
+                    scheduler.submit(p);
+                }
+                accepted++;
+                continue;
+            }
+            if (p.arrivalTime < clock) {
+                throw new IllegalArgumentException(accepted + " accepted; " + p.name + " arrives at " + p.arrivalTime
+                        + " but the clock is already at " + clock);
+            }
+            clock = p.arrivalTime;
+            inSystem.put(p.name, p);
+            scheduler.submit(p);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    // Simulates everything before time
+    public synchronized void advanceTo(long time) {
+        if (tickMillis > 0) throw new IllegalStateException("The clock follows wall time");
+        follow(time);
+    }
+
+    private void follow(long time) {
+        if (time <= clock) return;
+        if (time > Integer.MAX_VALUE) throw new IllegalArgumentException("Time out of range: " + time);
+        while (!future.isEmpty() && future.firstKey() <= time) {
+            for (Process p : future.pollFirstEntry().getValue()) {
+                scheduler.submit(p);
+                futureCount--;
+            }
+        }
+        clock = time;
+        scheduler.advanceTo((int) time);
+    }
+
+    private long wallTick() {
+        return (System.nanoTime() - startNanos) / (tickMillis * 1_000_000L);
+    }
+
+    public synchronized long clock() { return clock; }
+
+    @Override
+    public void onCompletion(Process process) {
+        inSystem.remove(process.name);
+        finished.put(process.name, process);
+        stats.onCompletion(process);
+    }
+
+    // Clock, running process, the first limit waiting processes in ready-queue order, counts and averages
+    public synchronized String stateJson(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative: " + limit);
+        Process running = scheduler.running();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"algorithm\": \"").append(algorithm).append("\", \"time\": ").append(clock)
+          .append(", \"submitted\": ").append(scheduler.submittedCount())
+          .append(", \"pending\": ").append(futureCount)
+          .append(", \"completed\": ").append(scheduler.completedCount())
+          .append(", \"averageWaitingTime\": ").append(scheduler.averageWaitingTime())
+          .append(", \"averageTurnaroundTime\": ").append(scheduler.averageTurnaroundTime())
+          .append(", \"running\": ");
+        if (running == null) sb.append("null"); else appendProcess(sb, running, "running");
+        sb.append(", \"waitingCount\": ").append(scheduler.activeCount() - (running == null ? 0 : 1)).append(", \"waiting\": [");
+        int[] listed = {0};
+        if (limit > 0) {
+            scheduler.forEachWaiting(p -> {
+                if (listed[0]++ > 0) sb.append(", ");
+                appendProcess(sb, p, "waiting");
+                return listed[0] < limit;
+            });
+        }
+        return sb.append("]}").toString();
+    }
+
+    // One process by name, or null if it is neither in the system nor among the retained finished ones
+    public synchronized String processJson(String name) {
+        Process p = inSystem.get(name);
+        String state = p == null ? "finished" : p == scheduler.running() ? "running" : p.arrivalTime > clock ? "pending" : "waiting";
+        if (p == null) p = finished.get(name);
+        if (p == null) return null;
+        StringBuilder sb = new StringBuilder();
+        appendProcess(sb, p, state);
+        return sb.toString();
+    }
+
+    public synchronized String statsText() {
+        return stats.toString();
+    }
+
+    private void appendProcess(StringBuilder sb, Process p, String state) {
+        boolean done = state.equals("finished");
+        sb.append("{\"name\": ").append(SchedulerCli.quote(p.name)).append(", \"state\": \"").append(state)
+          .append("\", \"arrival\": ").append(p.arrivalTime).append(", \"burst\": ").append(p.burstTime)
+          .append(", \"remaining\": ").append(done ? 0 : p.remainingTime)
+          .append(", \"priority\": ").append(p.priority).append(", \"quantum\": ").append(p.quantum)
+          .append(", \"start\": ").append(p.startTime);
+        if (done) {
+            sb.append(", \"completion\": ").append(p.completionTime).append(", \"waiting\": ").append(p.waitingTime)
+              .append(", \"turnaround\": ").append(p.turnaroundTime);
+        } else {
+            // Waited so far: time in the system that was not spent running
+            sb.append(", \"waiting\": ").append(Math.max(0, clock - p.arrivalTime - (p.burstTime - p.remainingTime)));
+        }
+        sb.append(", \"response\": ").append(p.startTime < 0 ? -1 : p.startTime - p.arrivalTime);
+        if (algorithm == Algorithm.AG) sb.append(", \"quantumHistory\": ").append(p.quantumHistory);
+        sb.append('}');
+    }
+
+    public void start(int port, int threads) throws IOException {
+        // Headers and body go out as separate writes; with Nagle every response waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/submit", ex -> handle(ex, "POST", () -> {
+            List<Process> batch = new ArrayList<>();
+            try (WorkloadReader reader = new WorkloadReader(ex.getRequestBody(), DEFAULT_QUANTUM)) {
+                while (reader.hasNext()) {
+                    Process p = reader.next();
+                    if (p.burstTime < 1 || p.arrivalTime < 0) {
+                        throw new IllegalArgumentException(p.name + " needs a positive burst and a non-negative arrival");
+                    }
+                    batch.add(p);
+                }
+            }
+            return "{\"accepted\": " + submit(batch) + ", \"time\": " + clock() + "}";
+        }));
+        server.createContext("/advance", ex -> handle(ex, "POST", () -> {
+            advanceTo(Long.parseLong(required(ex.getRequestURI(), "to")));
+            return "{\"time\": " + clock() + "}";
+        }));
+        server.createContext("/state", ex -> handle(ex, "GET", () -> {
+            String limit = query(ex.getRequestURI()).get("limit");
+            return stateJson(limit == null ? 100 : Integer.parseInt(limit));
+        }));
+        server.createContext("/process", ex -> handle(ex, "GET", () -> {
+            String name = required(ex.getRequestURI(), "name");
+            String json = processJson(name);
+            if (json == null) throw new NoSuchElementException("Unknown process: " + name);
+            return json;
+        }));
+        server.createContext("/stats", ex -> handle(ex, "GET", this::statsText));
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.start();
+
+        if (tickMillis > 0) {
+            ticker = Executors.newSingleThreadScheduledExecutor();
+            ticker.scheduleAtFixedRate(() -> {
+                synchronized (this) {
+                    follow(wallTick());
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        if (ticker != null) ticker.shutdownNow();
+        if (server != null) {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    private interface Handler {
+        String respond() throws Exception;
+    }
+
+    // Runs handler and maps its failures to 404 (unknown process) and 400 (anything the client got wrong)
+    private static void handle(HttpExchange ex, String method, Handler handler) throws IOException {
+        int status = 200;
+        String body;
+        if (!ex.getRequestMethod().equals(method)) {
+            status = 405;
+            body = "Use " + method;
+        } else {
+            try {
+                body = handler.respond();
+            } catch (NoSuchElementException e) {
+                status = 404;
+                body = e.getMessage();
+            } catch (RuntimeException | IOException e) {
+                status = 400;
+                body = String.valueOf(e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                body = String.valueOf(e);
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", status == 200 && body.startsWith("{") ? "application/json" : "text/plain");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String q = uri.getQuery();
+        if (q == null) return params;
+        for (String pair : q.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    private static String required(URI uri, String param) {
+        String value = query(uri).get(param);
+        if (value == null) throw new IllegalArgumentException("Missing query parameter " + param);
+        return value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        Algorithm algorithm = Algorithm.parse(options.getOrDefault("algorithm", "ag"));
+        SchedulerConfig config = new SchedulerConfig(
+                Integer.parseInt(options.getOrDefault("rr-quantum", "2")),
+                Integer.parseInt(options.getOrDefault("context-switch", "0")),
+                Integer.parseInt(options.getOrDefault("aging", "5")));
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int tickMillis = Integer.parseInt(options.getOrDefault("tick-ms", "0"));
+        int retain = Integer.parseInt(options.getOrDefault("retain", "100000"));
+
+        SchedulerService service = new SchedulerService(algorithm, config, tickMillis, retain);
+        service.start(port, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        System.out.println(algorithm + " scheduler listening on port " + service.port()
+                + (tickMillis > 0 ? ", " + tickMillis + " ms per tick" : ", simulated time"));
+    }
+}
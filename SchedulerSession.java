@@ -0,0 +1,294 @@
+import java.util.*;
+
+/**
+ * Reusable scheduler run for sweeps that schedule the same or similar
+ * workloads many times. The workload is held in primitive arrays, the
+ * Process objects the engines work on are pooled and reset in place, one
+ * event-driven engine per algorithm is kept and {@link StreamingScheduler#reset}
+ * between runs, and the results go into primitive buffers that are
+ * overwritten by the next run. Once the buffers have grown to the workload,
+ * {@link #run} allocates nothing; only a change of algorithm settings builds
+ * a new engine.
+ *
+ * Results are the same as {@link Algorithm#runEventDriven} and are read
+ * through the accessors by input position. They are only valid until the
+ * next run; {@link #toSchedulerResult} copies them out. A session is not
+ * thread-safe, use one per thread.
+ */
+public class SchedulerSession implements ScheduleListener {
+
+    private static final Algorithm[] ALGORITHMS = Algorithm.values();
+
+    // Pooled process that knows its input position, so the listener needs no lookup
+    private static final class Slot extends Process {
+        final int id;
+
+        Slot(int id) {
+            super(null, 0, 0, 0, 0);
+            this.id = id;
+        }
+    }
+
+    // Workload, by input position
+    private int processCount;
+    private String[] names = new String[16];
+    private int[] arrival = new int[16], burst = new int[16], priority = new int[16], quantum = new int[16];
+    private int[] deadline = new int[16], period = new int[16];
+    private Slot[] pool = new Slot[16];
+    // Input positions in arrival order; rebuilt only after arrivals change
+    private long[] byArrival = new long[16];
+    private boolean sorted;
+
+    // Engines built so far and the settings they were built with
+    private final StreamingScheduler[] engines = new StreamingScheduler[ALGORITHMS.length];
+    private final SchedulerConfig[] engineConfigs = new SchedulerConfig[ALGORITHMS.length];
+
+    // Results of the last run
+    private Algorithm algorithm;
+    private int[] start = new int[16], completion = new int[16];
+    private int dispatchCount;
+    private int[] dispatchProcess = new int[16], dispatchTime = new int[16];
+    private final Timeline timeline = new Timeline();
+    private long totalWaiting, totalTurnaround, totalResponse;
+
+    // AG quantum histories, chained per process through a shared pool as in CompactResult
+    private int[] historyHead = new int[16], historyTail = new int[16], historyLength = new int[16];
+    private int historyCount;
+    private int[] historyValue = new int[16], historyNext = new int[16];
+
+    public SchedulerSession() {
+        for (int i = 0; i < pool.length; i++) pool[i] = new Slot(i);
+    }
+
+    // Replaces the workload with a copy of input's definitions
+    public SchedulerSession load(List<Process> input) {
+        ensureCapacity(input.size());
+        processCount = input.size();
+        for (int i = 0; i < processCount; i++) {
+            Process p = input.get(i);
+            names[i] = p.name;
+            arrival[i] = p.arrivalTime;
+            burst[i] = p.burstTime;
+            priority[i] = p.priority;
+            quantum[i] = p.quantum;
+            deadline[i] = p.deadline;
+            period[i] = p.period;
+        }
+        Arrays.fill(names, processCount, names.length, null);
+        sorted = false;
+        return this;
+    }
+
+    // Changes the process at input position i, to run a variation of the loaded workload
+    public SchedulerSession set(int i, int arrivalTime, int burstTime, int priority, int quantum, int deadline, int period) {
+        Objects.checkIndex(i, processCount);
+        if (arrival[i] != arrivalTime) sorted = false;
+        arrival[i] = arrivalTime;
+        burst[i] = burstTime;
+        this.priority[i] = priority;
+        this.quantum[i] = quantum;
+        this.deadline[i] = deadline;
+        this.period[i] = period;
+        return this;
+    }
+
+    /**
+     * Schedules the loaded workload with algorithm. Resetting costs O(n) and,
+     * once the buffers fit the workload, nothing is allocated.
+     */
+    public SchedulerSession run(Algorithm algorithm, SchedulerConfig config) {
+        StreamingScheduler engine = engine(algorithm, config);
+        engine.reset();
+        this.algorithm = algorithm;
+        if (!sorted) sortByArrival();
+
+        timeline.clear();
+        dispatchCount = 0;
+        historyCount = 0;
+        totalWaiting = totalTurnaround = totalResponse = 0;
+        boolean ag = algorithm == Algorithm.AG;
+        for (int i = 0; i < processCount; i++) {
+            Slot p = pool[i];
+            p.name = names[i];
+            p.arrivalTime = arrival[i];
+            p.burstTime = burst[i];
+            p.remainingTime = burst[i];
+            p.priority = priority[i];
+            p.quantum = quantum[i];
+            p.deadline = deadline[i];
+            p.period = period[i];
+            p.startTime = -1;
+            p.completionTime = p.waitingTime = p.turnaroundTime = 0;
+            start[i] = -1;
+            historyHead[i] = -1;
+            historyLength[i] = 0;
+            if (ag) addHistory(i, quantum[i]);
+        }
+
+        for (int k = 0; k < processCount; k++) {
+            int id = (int) byArrival[k];
+            engine.submit(pool[id], id);
+        }
+        engine.finish();
+        return this;
+    }
+
+    private StreamingScheduler engine(Algorithm algorithm, SchedulerConfig config) {
+        int a = algorithm.ordinal();
+        if (engines[a] == null || !sameSettings(engineConfigs[a], config)) {
+            engines[a] = algorithm.streaming(config, this).keepQuantumHistory(false);
+            SchedulerConfig copy = new SchedulerConfig(config.rrQuantum, config.contextSwitch, config.agingInterval);
+            copy.mlfqQuanta = config.mlfqQuanta.clone();
+            copy.mlfqBoostInterval = config.mlfqBoostInterval;
+            copy.cfsTargetLatency = config.cfsTargetLatency;
+            copy.cfsMinGranularity = config.cfsMinGranularity;
+            engineConfigs[a] = copy;
+        }
+        return engines[a];
+    }
+
+    private static boolean sameSettings(SchedulerConfig a, SchedulerConfig b) {
+        return a.rrQuantum == b.rrQuantum && a.contextSwitch == b.contextSwitch && a.agingInterval == b.agingInterval
+                && Arrays.equals(a.mlfqQuanta, b.mlfqQuanta) && a.mlfqBoostInterval == b.mlfqBoostInterval
+                && a.cfsTargetLatency == b.cfsTargetLatency && a.cfsMinGranularity == b.cfsMinGranularity;
+    }
+
+    // Arrival time, then input position; a workload that is already in order is not sorted again
+    private void sortByArrival() {
+        boolean inOrder = true;
+        for (int i = 0; i < processCount; i++) {
+            byArrival[i] = ((long) arrival[i] << 32) | i;
+            if (i > 0 && byArrival[i] < byArrival[i - 1]) inOrder = false;
+        }
+        if (!inOrder) Arrays.sort(byArrival, 0, processCount);
+        sorted = true;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= pool.length) return;
+        int capacity = Math.max(n, pool.length * 2);
+        int old = pool.length;
+        names = Arrays.copyOf(names, capacity);
+        arrival = Arrays.copyOf(arrival, capacity);
+        burst = Arrays.copyOf(burst, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        quantum = Arrays.copyOf(quantum, capacity);
+        deadline = Arrays.copyOf(deadline, capacity);
+        period = Arrays.copyOf(period, capacity);
+        pool = Arrays.copyOf(pool, capacity);
+        for (int i = old; i < capacity; i++) pool[i] = new Slot(i);
+        byArrival = Arrays.copyOf(byArrival, capacity);
+        start = Arrays.copyOf(start, capacity);
+        completion = Arrays.copyOf(completion, capacity);
+        historyHead = Arrays.copyOf(historyHead, capacity);
+        historyTail = Arrays.copyOf(historyTail, capacity);
+        historyLength = Arrays.copyOf(historyLength, capacity);
+    }
+
+    @Override
+    public void onDispatch(Process process, int time) {
+        int id = ((Slot) process).id;
+        if (dispatchCount == dispatchProcess.length) {
+            dispatchProcess = Arrays.copyOf(dispatchProcess, dispatchCount * 2);
+            dispatchTime = Arrays.copyOf(dispatchTime, dispatchCount * 2);
+        }
+        dispatchProcess[dispatchCount] = id;
+        dispatchTime[dispatchCount++] = time;
+        if (start[id] < 0) start[id] = time;
+    }
+
+    @Override
+    public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+        timeline.append(process == null ? null : process.name, start, end, reason);
+    }
+
+    @Override
+    public void onQuantumUpdate(Process process, int quantum) {
+        addHistory(((Slot) process).id, quantum);
+    }
+
+    @Override
+    public void onCompletion(Process process) {
+        int id = ((Slot) process).id;
+        completion[id] = process.completionTime;
+        totalWaiting += process.waitingTime;
+        totalTurnaround += process.turnaroundTime;
+        totalResponse += start[id] - arrival[id];
+    }
+
+    private void addHistory(int id, int quantum) {
+        if (historyCount == historyValue.length) {
+            historyValue = Arrays.copyOf(historyValue, historyCount * 2);
+            historyNext = Arrays.copyOf(historyNext, historyCount * 2);
+        }
+        int entry = historyCount++;
+        historyValue[entry] = quantum;
+        historyNext[entry] = -1;
+        if (historyHead[id] < 0) historyHead[id] = entry; else historyNext[historyTail[id]] = entry;
+        historyTail[id] = entry;
+        historyLength[id]++;
+    }
+
+    public int processCount() { return processCount; }
+
+    public String name(int i) { return names[i]; }
+
+    public int startTime(int i) { return start[i]; }
+
+    public int completionTime(int i) { return completion[i]; }
+
+    public int turnaroundTime(int i) { return completion[i] - arrival[i]; }
+
+    public int waitingTime(int i) { return completion[i] - arrival[i] - burst[i]; }
+
+    public int responseTime(int i) { return start[i] - arrival[i]; }
+
+    // Execution order: entry k is process dispatchProcess(k), dispatched at dispatchTime(k)
+    public int dispatchCount() { return dispatchCount; }
+
+    public int dispatchProcess(int k) { return dispatchProcess[k]; }
+
+    public int dispatchTime(int k) { return dispatchTime[k]; }
+
+    // Reused by the next run
+    public Timeline timeline() { return timeline; }
+
+    // AG only: number of quanta process i went through, the first being its initial quantum
+    public int quantumHistoryLength(int i) { return historyLength[i]; }
+
+    // Walks the history of process i from the start; k must be below quantumHistoryLength(i)
+    public int quantumHistory(int i, int k) {
+        Objects.checkIndex(k, historyLength[i]);
+        int e = historyHead[i];
+        while (k-- > 0) e = historyNext[e];
+        return historyValue[e];
+    }
+
+    public double averageWaitingTime() { return (double) totalWaiting / processCount; }
+
+    public double averageTurnaroundTime() { return (double) totalTurnaround / processCount; }
+
+    public double averageResponseTime() { return (double) totalResponse / processCount; }
+
+    // Copy of the last run in the shape of Algorithm.runEventDriven
+    public SchedulerResult toSchedulerResult() {
+        SchedulerResult r = new SchedulerResult();
+        for (int k = 0; k < dispatchCount; k++) r.executionOrder.add(names[dispatchProcess[k]]);
+        for (int i = 0; i < processCount; i++) {
+            r.waitingTimes.put(names[i], waitingTime(i));
+            r.turnaroundTimes.put(names[i], turnaroundTime(i));
+            r.responseTimes.put(names[i], responseTime(i));
+            r.addLateness(names[i], completion[i], pool[i].absoluteDeadline());
+            if (algorithm == Algorithm.AG) {
+                List<Integer> history = new ArrayList<>(historyLength[i]);
+                for (int e = historyHead[i]; e >= 0; e = historyNext[e]) history.add(historyValue[e]);
+                r.quantumHistory.put(names[i], history);
+            }
+        }
+        r.timeline = timeline.prefix(timeline.size(), timeline.size() == 0 ? 0 : timeline.end(timeline.size() - 1));
+        r.averageWaitingTime = averageWaitingTime();
+        r.averageTurnaroundTime = averageTurnaroundTime();
+        r.averageResponseTime = averageResponseTime();
+        return r;
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.*;
+
+/**
+ * Service-level statistics of a schedule, built in one pass over the
+ * processes: response, waiting and turnaround distributions (p50/p95/p99
+ * come from {@link Histogram}s, so nothing is sorted), completions per time
+ * window, CPU utilisation, Jain's fairness index and, for processes with a
+ * deadline, misses and tardiness.
+ *
+ * At most MAX_WINDOWS completion counters are kept, so memory does not grow
+ * with the span: once a completion falls past the last one, the window
+ * width doubles and neighbouring counters are added up.
+ *
+ * Feed it from a finished {@link SchedulerResult} with {@link #of}, or attach
+ * it to a {@link StreamingScheduler} as a listener to aggregate a trace of
+ * any length as it runs.
+ */
+public class SchedulerStats implements ScheduleListener {
+
+    public final Histogram responseTime = new Histogram();
+    public final Histogram waitingTime = new Histogram();
+    public final Histogram turnaroundTime = new Histogram();
+
+    public static final int MAX_WINDOWS = 4096;
+
+    public final int window; // narrowest throughput window width in ticks
+    private long windowWidth; // current width: window times a power of two
+    private long[] completionsPerWindow = new long[16];
+
+    public long count;
+    public long totalBurst;
+    public long firstArrival = Long.MAX_VALUE;
+    public long lastCompletion = Long.MIN_VALUE;
+
+    // Processes with a deadline, those that finished after it, and by how much (0 when on time)
+    public long deadlineJobs;
+    public long deadlineMisses;
+    public final Histogram tardiness = new Histogram();
+    public long maxLateness = Long.MIN_VALUE;
+
+    // Jain's index over each process's share of its time in the system spent running (burst / turnaround)
+    private double shareSum, shareSquares;
+
+    public SchedulerStats(int window) {
+        if (window < 1) throw new IllegalArgumentException("Window must be at least 1 tick");
+        this.window = window;
+        this.windowWidth = window;
+    }
+
+    // input is the workload the result was computed from; it supplies arrival and burst times
+    public static SchedulerStats of(SchedulerResult result, List<Process> input, int window) {
+        SchedulerStats stats = new SchedulerStats(window);
+        for (Process p : input) {
+            int turnaround = result.turnaroundTimes.get(p.name);
+            int response = result.responseTimes.get(p.name);
+            stats.record(p.arrivalTime, p.burstTime, p.arrivalTime + response, p.arrivalTime + turnaround);
+            if (p.hasDeadline()) stats.recordDeadline(p.arrivalTime + turnaround, p.absoluteDeadline());
+        }
+        return stats;
+    }
+
+    @Override
+    public void onCompletion(Process p) {
+        record(p.arrivalTime, p.burstTime, p.startTime, p.completionTime);
+        if (p.hasDeadline()) recordDeadline(p.completionTime, p.absoluteDeadline());
+    }
+
+    public void record(int arrival, int burst, int start, int completion) {
+        int turnaround = completion - arrival;
+        responseTime.record(start - arrival);
+        waitingTime.record(turnaround - burst);
+        turnaroundTime.record(turnaround);
+        count++;
+        totalBurst += burst;
+        firstArrival = Math.min(firstArrival, arrival);
+        lastCompletion = Math.max(lastCompletion, completion);
+        double share = turnaround == 0 ? 1 : (double) burst / turnaround;
+        shareSum += share;
+        shareSquares += share * share;
+
+        long w = Math.max(0, Math.floorDiv(completion, windowWidth));
+        while (w >= MAX_WINDOWS) {
+            coarsen();
+            w /= 2;
+        }
+        ensureWindows((int) w + 1);
+        completionsPerWindow[(int) w]++;
+    }
+
+    // Doubles the window width, adding up neighbouring counters
+    private void coarsen() {
+        long[] wider = new long[Math.max(16, (completionsPerWindow.length + 1) / 2)];
+        for (int i = 0; i < completionsPerWindow.length; i++) wider[i / 2] += completionsPerWindow[i];
+        completionsPerWindow = wider;
+        windowWidth *= 2;
+    }
+
+    private void ensureWindows(int n) {
+        if (n > completionsPerWindow.length) {
+            completionsPerWindow = Arrays.copyOf(completionsPerWindow, Math.min(MAX_WINDOWS, Math.max(n, completionsPerWindow.length * 2)));
+        }
+    }
+
+    public void recordDeadline(long completion, long deadline) {
+        long lateness = completion - deadline;
+        deadlineJobs++;
+        if (lateness > 0) deadlineMisses++;
+        tardiness.record(Math.max(0, lateness));
+        maxLateness = Math.max(maxLateness, lateness);
+    }
+
+    public void add(SchedulerStats other) {
+        if (other.window != window) throw new IllegalArgumentException("Window sizes differ: " + window + " vs " + other.window);
+        responseTime.add(other.responseTime);
+        waitingTime.add(other.waitingTime);
+        turnaroundTime.add(other.turnaroundTime);
+        count += other.count;
+        totalBurst += other.totalBurst;
+        firstArrival = Math.min(firstArrival, other.firstArrival);
+        lastCompletion = Math.max(lastCompletion, other.lastCompletion);
+        shareSum += other.shareSum;
+        shareSquares += other.shareSquares;
+        deadlineJobs += other.deadlineJobs;
+        deadlineMisses += other.deadlineMisses;
+        tardiness.add(other.tardiness);
+        maxLateness = Math.max(maxLateness, other.maxLateness);
+        while (windowWidth < other.windowWidth) coarsen();
+        // Both widths are window times a power of two, so other's windows nest in this one's
+        long ratio = windowWidth / other.windowWidth;
+        ensureWindows((int) ((other.completionsPerWindow.length - 1) / ratio) + 1);
+        for (int i = 0; i < other.completionsPerWindow.length; i++) completionsPerWindow[(int) (i / ratio)] += other.completionsPerWindow[i];
+    }
+
+    // Length of the schedule from the first arrival to the last completion
+    public long span() { return count == 0 ? 0 : lastCompletion - firstArrival; }
+
+    // Fraction of the span the CPU spent running processes (can exceed 1 for multi-core schedules)
+    public double utilization() { return span() == 0 ? 0 : (double) totalBurst / span(); }
+
+    // Completions per tick over the whole span
+    public double throughput() { return span() == 0 ? 0 : (double) count / span(); }
+
+    // 1 when every process got the same share of its time in the system, down to 1/n
+    public double jainFairness() { return count == 0 ? 1 : shareSum * shareSum / (count * shareSquares); }
+
+    // Width of the windows completionsInWindow counts, window unless the span needed more than MAX_WINDOWS
+    public long windowWidth() { return windowWidth; }
+
+    // Windows [i * windowWidth, (i + 1) * windowWidth) up to the one holding the last completion
+    public int windowCount() { return count == 0 ? 0 : (int) (Math.max(0, lastCompletion) / windowWidth) + 1; }
+
+    public long completionsInWindow(int i) { return i < completionsPerWindow.length ? completionsPerWindow[i] : 0; }
+
+    public long peakWindowCompletions() {
+        long peak = 0;
+        for (long c : completionsPerWindow) peak = Math.max(peak, c);
+        return peak;
+    }
+
+    // Fraction of the processes with a deadline that missed it
+    public double missRatio() { return deadlineJobs == 0 ? 0 : (double) deadlineMisses / deadlineJobs; }
+
+    @Override
+    public String toString() {
+        String deadlines = deadlineJobs == 0 ? "" : String.format("%ndeadlines  jobs=%d missed=%d (%.4f) maxLateness=%d tardiness %s",
+                deadlineJobs, deadlineMisses, missRatio(), maxLateness, tardiness);
+        return String.format("processes=%d span=%d utilization=%.3f throughput=%.4f/tick (peak %d per %d ticks) fairness=%.4f%n"
+                        + "response   %s%nwaiting    %s%nturnaround %s",
+                count, span(), utilization(), throughput(), peakWindowCompletions(), windowWidth, jainFairness(),
+                responseTime, waitingTime, turnaroundTime) + deadlines;
+    }
+}
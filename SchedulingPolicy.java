@@ -0,0 +1,79 @@
+import java.util.function.IntPredicate;
+
+/**
+ * The decisions of one scheduling algorithm, driven by a {@link PolicyScheduler}.
+ * The core owns the clock, the slot table of processes in the system, arrival
+ * admission, idle time, context-switch charging, completions and everything
+ * reported to the listener; a policy only keeps its ready set and answers
+ * which process runs and for how long. Processes are named by their slot in
+ * the core; {@link PolicyScheduler#process} and {@link PolicyScheduler#order}
+ * look them up.
+ *
+ * A process is waiting from onArrival or onPreempt until pickNext returns
+ * it, then running until it completes or is preempted. Every hook is called
+ * with the schedule decided up to time.
+ */
+public interface SchedulingPolicy {
+
+    // Called once by the core before any other hook; capacity is the initial size of the slot table
+    void attach(PolicyScheduler core, int capacity);
+
+    // The slot table grew to capacity
+    default void grow(int capacity) {}
+
+    // slot arrived (or was migrated here) at time and waits
+    void onArrival(int slot, long time);
+
+    // Removes the waiting process to run next and returns its slot, or -1 when nothing waits
+    int pickNext(long time);
+
+    /**
+     * Calls visit with the waiting slots in the order pickNext would return
+     * them at time if nothing else happened, until visit returns false. Costs
+     * about the number visited, not the number waiting.
+     */
+    void forEachWaiting(long time, IntPredicate visit);
+
+    /**
+     * slot starts a slice at time, after any context switch. Returns when the
+     * policy wants to look at it again; a time at or before the start gives
+     * it no slice at all. The core stops the slice earlier when the process
+     * finishes and at every arrival.
+     */
+    long onDispatch(int slot, long time);
+
+    /**
+     * The slice of running stopped at time with work left, before arrivals at
+     * time are admitted. Return true to preempt it right there, so it queues
+     * ahead of those arrivals.
+     */
+    default boolean onSliceEnd(int running, long time) { return false; }
+
+    /**
+     * Decision point while running still has work: its slice stopped at time
+     * and the arrivals up to time are admitted. Returns the new end of its
+     * slice, or a time at or before time to preempt it.
+     */
+    long onTickBoundary(int running, long time);
+
+    // Why running is being preempted at time; asked right before onPreempt
+    MetricsListener.Preemption preemptionCause(int running, long time);
+
+    // running lost the CPU with work left and waits again
+    void onPreempt(int running, long time);
+
+    // The CPU switched processes from start to end (end == start without a switch cost)
+    default void onContextSwitch(long start, long end) {}
+
+    // slot finished at time; it still holds the process until this returns
+    default void onCompletion(int slot, long time) {}
+
+    // true when every slice starts a new execution order entry, even if the same process continues
+    default boolean dispatchesEverySlice() { return false; }
+
+    // Forgets every process and starts over at time 0, keeping the arrays it has grown
+    void reset();
+
+    // Independent copy of the policy state for a checkpoint, attached to core (the copy of this policy's core)
+    SchedulingPolicy copy(PolicyScheduler core);
+}
@@ -0,0 +1,347 @@
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Incremental form of the event-driven schedulers. Arrivals are pushed in
+ * arrivalTime order with {@link #submit}, the schedule is reported to a
+ * {@link ScheduleListener} as it is decided, and running averages are kept
+ * along the way. A finished process is forgotten, so memory is bounded by
+ * the ready set rather than the length of the trace.
+ *
+ * Submitted Process objects are used as the scheduler's own state and are
+ * updated in place, the same way CPUScheduler updates its copies.
+ */
+public abstract class StreamingScheduler {
+
+    protected final ScheduleListener listener;
+
+    // Slot table for the processes currently in the system; freed slots are reused
+    protected Process[] slots = new Process[16];
+    // Tie-breaker standing in for the input position of the list-based schedulers
+    protected long[] order = new long[16];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int highWater;
+
+    private boolean quantumHistoryInProcess = true;
+
+    private long submitted;
+    private long arrivalFloor = Long.MIN_VALUE;
+    private boolean finished;
+
+    private long completed;
+    private long totalWaiting;
+    private long totalTurnaround;
+
+    protected StreamingScheduler(ScheduleListener listener) {
+        this.listener = listener;
+    }
+
+    // Copy of from's state that reports to listener; the processes in the system are cloned
+    protected StreamingScheduler(StreamingScheduler from, ScheduleListener listener) {
+        this.listener = listener;
+        slots = new Process[from.slots.length];
+        for (int i = 0; i < from.highWater; i++) {
+            if (from.slots[i] != null) slots[i] = cloneProcess(from.slots[i]);
+        }
+        order = from.order.clone();
+        free = from.free.clone();
+        freeCount = from.freeCount;
+        highWater = from.highWater;
+        quantumHistoryInProcess = from.quantumHistoryInProcess;
+        submitted = from.submitted;
+        arrivalFloor = from.arrivalFloor;
+        finished = from.finished;
+        completed = from.completed;
+        totalWaiting = from.totalWaiting;
+        totalTurnaround = from.totalTurnaround;
+    }
+
+    public static StreamingScheduler preemptiveSJF(int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new SJFPolicy(), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler edf(int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new EDFPolicy(), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler rateMonotonic(int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new RateMonotonicPolicy(), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler roundRobin(int quantum, int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new RoundRobinPolicy(quantum), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler priorityPreemptive(int contextSwitch, int agingInterval, ScheduleListener listener) {
+        return new PolicyScheduler(new PriorityPolicy(agingInterval), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler agScheduling(ScheduleListener listener) {
+        return new PolicyScheduler(new AGPolicy(), 0, listener);
+    }
+
+    // quanta[i] is the quantum of level i; boostInterval 0 never boosts
+    public static StreamingScheduler mlfq(int[] quanta, int boostInterval, int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new MLFQPolicy(quanta, boostInterval), contextSwitch, listener);
+    }
+
+    public static StreamingScheduler fairShare(int targetLatency, int minGranularity, int contextSwitch, ScheduleListener listener) {
+        return new PolicyScheduler(new FairSharePolicy(targetLatency, minGranularity), contextSwitch, listener);
+    }
+
+    /**
+     * Frozen copy of the whole scheduler state: clock, ready queue order,
+     * remaining times, AG quanta, aging state and the last process to run.
+     * Restoring it gives a scheduler that continues exactly where this one
+     * was, however often it is restored.
+     */
+    public static class Checkpoint {
+        private final StreamingScheduler state;
+
+        Checkpoint(StreamingScheduler state) {
+            this.state = state;
+        }
+
+        // Everything before this time has been decided, and nothing at or after it has arrived
+        public long time() { return state.arrivalFloor; }
+
+        public StreamingScheduler restore(ScheduleListener listener) {
+            return state.copy(listener);
+        }
+    }
+
+    public Checkpoint checkpoint() {
+        return new Checkpoint(copy(null));
+    }
+
+    public void submit(Process process) {
+        submit(process, submitted);
+    }
+
+    // order ranks processes the way the input list position does in CPUScheduler
+    void submit(Process process, long order) {
+        if (finished) throw new IllegalStateException("Scheduler already finished");
+        if (process.arrivalTime < arrivalFloor) {
+            throw new IllegalArgumentException("Arrivals must be submitted in arrivalTime order: " + process.name
+                    + " arrives at " + process.arrivalTime + " but the scheduler is already at " + arrivalFloor);
+        }
+        arrivalFloor = process.arrivalTime;
+        submitted++;
+        advance(process.arrivalTime);
+        place(process, order, process.arrivalTime);
+    }
+
+    // Puts process into the system as arriving at time; everything before time has been simulated
+    private void place(Process process, long order, long time) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (highWater == slots.length) {
+                int capacity = slots.length * 2;
+                slots = Arrays.copyOf(slots, capacity);
+                this.order = Arrays.copyOf(this.order, capacity);
+                free = Arrays.copyOf(free, capacity);
+                grow(capacity);
+            }
+            slot = highWater++;
+        }
+        slots[slot] = process;
+        this.order[slot] = order;
+        admit(slot, time);
+    }
+
+    /**
+     * Moves one waiting process to thief, where it queues as if it had just
+     * arrived at time. Both schedulers must have been advanced to time.
+     * Returns the process moved, or null if nothing here is waiting.
+     */
+    Process migrateTo(StreamingScheduler thief, long time) {
+        int slot = takeWaiting();
+        if (slot < 0) return null;
+        Process p = slots[slot];
+        long key = order[slot];
+        slots[slot] = null;
+        free[freeCount++] = slot;
+        thief.place(p, key, time);
+        return p;
+    }
+
+    // Processes in the system, running or waiting
+    int activeCount() { return highWater - freeCount; }
+
+    // Processes in the system, running or waiting, in submission order
+    public List<Process> active() {
+        Integer[] inSystem = new Integer[activeCount()];
+        for (int i = 0, k = 0; i < highWater; i++) if (slots[i] != null) inSystem[k++] = i;
+        Arrays.sort(inSystem, Comparator.comparingLong(i -> order[i]));
+        List<Process> processes = new ArrayList<>(inSystem.length);
+        for (int i : inSystem) processes.add(slots[i]);
+        return processes;
+    }
+
+    // The process on the CPU, null while idle
+    public abstract Process running();
+
+    // Calls visit with the waiting processes in the order they would be picked now, until it returns false
+    public abstract void forEachWaiting(Predicate<Process> visit);
+
+    // Promises that nothing arrives before time, and simulates everything that happens before it
+    public void advanceTo(int time) {
+        if (finished) return;
+        arrivalFloor = Math.max(arrivalFloor, time);
+        advance(time);
+    }
+
+    // No more arrivals: run everything in the system to completion
+    public void finish() {
+        if (finished) return;
+        advance(Long.MAX_VALUE);
+        finished = true;
+    }
+
+    public void run(Iterator<? extends Process> arrivals) {
+        while (arrivals.hasNext()) submit(arrivals.next());
+        finish();
+    }
+
+    public void run(Stream<? extends Process> arrivals) {
+        run(arrivals.iterator());
+    }
+
+    // Pulls arrivals one at a time from a Flow.Publisher and finishes when it completes
+    public Flow.Subscriber<Process> subscriber() {
+        return new Flow.Subscriber<Process>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Process process) {
+                try {
+                    submit(process);
+                } catch (RuntimeException e) {
+                    subscription.cancel();
+                    listener.onError(e);
+                    return;
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                listener.onError(error);
+            }
+
+            @Override
+            public void onComplete() {
+                finish();
+            }
+        };
+    }
+
+    /**
+     * Forgets every process and the statistics and starts over at time 0, as
+     * if newly created with the same settings and listener. The slot table
+     * and the engine's own arrays keep their size, so a scheduler that is
+     * reset and fed workloads of similar size does not allocate.
+     */
+    public void reset() {
+        Arrays.fill(slots, 0, highWater, null);
+        freeCount = 0;
+        highWater = 0;
+        submitted = 0;
+        arrivalFloor = Long.MIN_VALUE;
+        finished = false;
+        completed = 0;
+        totalWaiting = 0;
+        totalTurnaround = 0;
+    }
+
+    public long completedCount() { return completed; }
+
+    public long submittedCount() { return submitted; }
+
+    public double averageWaitingTime() { return completed == 0 ? 0 : (double) totalWaiting / completed; }
+
+    public double averageTurnaroundTime() { return completed == 0 ? 0 : (double) totalTurnaround / completed; }
+
+    public boolean isFinished() { return finished; }
+
+    // With false, quantum updates only go to the listener and Process.quantumHistory stays as submitted
+    public StreamingScheduler keepQuantumHistory(boolean inProcess) {
+        this.quantumHistoryInProcess = inProcess;
+        return this;
+    }
+
+    // A new arrival (or a migrated process) takes slot at time; the schedule has been simulated up to then
+    abstract void admit(int slot, long time);
+
+    // Removes the waiting process this engine would run next and returns its slot, or -1
+    abstract int takeWaiting();
+
+    // Simulates every decision that happens strictly before horizon
+    abstract void advance(long horizon);
+
+    // Slot arrays were grown to capacity; engines grow their own per-slot state
+    abstract void grow(int capacity);
+
+    // Deep copy of this engine reporting to listener, see the copying constructor
+    abstract StreamingScheduler copy(ScheduleListener listener);
+
+    // p's clone in this copy of from: the process in the same slot, or a detached clone if p has left
+    protected Process counterpart(Process p, StreamingScheduler from) {
+        if (p == null) return null;
+        for (int i = 0; i < from.highWater; i++) {
+            if (from.slots[i] == p) return slots[i];
+        }
+        return cloneProcess(p);
+    }
+
+    private static Process cloneProcess(Process p) {
+        Process c = p.copy();
+        c.quantumHistory = new ArrayList<>(p.quantumHistory);
+        return c;
+    }
+
+    protected void dispatched(int slot, long time) {
+        Process p = slots[slot];
+        if (p.startTime < 0) p.startTime = (int) time;
+        listener.onDispatch(p, (int) time);
+    }
+
+    protected void segment(Process p, long start, long end, Timeline.Reason reason) {
+        if (end > start) listener.onSegment(p, (int) start, (int) end, reason);
+    }
+
+    // The CPU was idle from time until a new arrival
+    protected long idleUntil(long time, long arrivalTime) {
+        segment(null, time, arrivalTime, Timeline.Reason.IDLE);
+        return Math.max(time, arrivalTime);
+    }
+
+    protected void quantumUpdated(Process p, int quantum) {
+        if (quantumHistoryInProcess) p.quantumHistory.add(quantum);
+        listener.onQuantumUpdate(p, quantum);
+    }
+
+    protected void completed(int slot, long time) {
+        Process p = slots[slot];
+        p.completionTime = (int) time;
+        p.turnaroundTime = p.completionTime - p.arrivalTime;
+        p.waitingTime = p.turnaroundTime - p.burstTime;
+        completed++;
+        totalWaiting += p.waitingTime;
+        totalTurnaround += p.turnaroundTime;
+        slots[slot] = null;
+        free[freeCount++] = slot;
+        listener.onCompletion(p);
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.*;
+
+/**
+ * Run-length encoded Gantt chart of one schedule: consecutive
+ * (process, start, end, reason) segments in time order. Appending a segment
+ * that continues the previous one with the same process and reason just
+ * extends it, so recording a tick costs O(1) and no allocation.
+ */
+public class Timeline {
+
+    public enum Reason { RUN, CONTEXT_SWITCH, IDLE }
+
+    private static final Reason[] REASONS = Reason.values();
+
+    private int size;
+    private String[] process = new String[16];
+    private int[] start = new int[16];
+    private int[] end = new int[16];
+    private byte[] reason = new byte[16];
+
+    // process is the one running, or being switched to; null for idle time
+    public void append(String processName, int from, int to, Reason why) {
+        if (to <= from) return;
+        int last = size - 1;
+        if (last >= 0 && end[last] == from && reason[last] == why.ordinal() && Objects.equals(process[last], processName)) {
+            end[last] = to;
+            return;
+        }
+        if (size == start.length) {
+            int capacity = size * 2;
+            process = Arrays.copyOf(process, capacity);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            reason = Arrays.copyOf(reason, capacity);
+        }
+        process[size] = processName;
+        start[size] = from;
+        end[size] = to;
+        reason[size] = (byte) why.ordinal();
+        size++;
+    }
+
+    public int size() { return size; }
+
+    // Drops every segment and keeps the arrays for reuse
+    public void clear() {
+        Arrays.fill(process, 0, size, null);
+        size = 0;
+    }
+
+    // Copy of the first size segments, the last of them cut off at lastEnd
+    public Timeline prefix(int size, int lastEnd) {
+        Timeline t = new Timeline();
+        int capacity = Math.max(16, size);
+        t.process = Arrays.copyOf(process, capacity);
+        t.start = Arrays.copyOf(start, capacity);
+        t.end = Arrays.copyOf(end, capacity);
+        t.reason = Arrays.copyOf(reason, capacity);
+        t.size = size;
+        if (size > 0) t.end[size - 1] = lastEnd;
+        return t;
+    }
+
+    public String process(int index) { return process[index]; }
+
+    public int start(int index) { return start[index]; }
+
+    public int end(int index) { return end[index]; }
+
+    public Reason reason(int index) { return REASONS[reason[index]]; }
+
+    // Index of the segment covering time, or -1 if the schedule has nothing there
+    public int indexAt(int time) {
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start[mid] <= time) lo = mid + 1; else hi = mid - 1;
+        }
+        return hi >= 0 && time < end[hi] ? hi : -1;
+    }
+
+    // Name of the process on the CPU at time, or null while idle or switching
+    public String runningAt(int time) {
+        int i = indexAt(time);
+        return i >= 0 && reason[i] == Reason.RUN.ordinal() ? process[i] : null;
+    }
+
+    // Total time spent for the given reason
+    public long total(Reason why) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) if (reason[i] == why.ordinal()) sum += end[i] - start[i];
+        return sum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Timeline)) return false;
+        Timeline t = (Timeline) o;
+        if (t.size != size) return false;
+        for (int i = 0; i < size; i++) {
+            if (start[i] != t.start[i] || end[i] != t.end[i] || reason[i] != t.reason[i]
+                    || !Objects.equals(process[i], t.process[i])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = size;
+        for (int i = 0; i < size; i++) h = 31 * h + end[i];
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(reason[i] == Reason.RUN.ordinal() ? process[i] : reason(i) == Reason.IDLE ? "idle" : "cs->" + process[i])
+              .append(' ').append(start[i]).append('-').append(end[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary workload trace, read through memory mapping. A trace is converted
+ * once from JSON (or any process source) and afterwards loads without
+ * parsing: the fields of process i are read straight out of the page cache.
+ *
+ * Records are kept in the order they were written, which need not be
+ * arrival order (a JSON test file is converted as it stands). The header
+ * says whether the arrivals are sorted; {@link #iterator} walks the file
+ * order, while {@link #arrivals} yields the processes in the arrival order
+ * a {@link StreamingScheduler} needs, sorting an unsorted trace by index
+ * first. Everything that streams a trace into a scheduler goes through
+ * arrivals.
+ *
+ * Layout, little-endian:
+ *   header  magic "SCHT", version, count (long), offset of the name bytes (long),
+ *           order (int: 1 sorted by arrival, 2 not sorted, 0 unknown), padding to 32 bytes
+ *   records count x 32 bytes: arrival, burst, priority, quantum, deadline, period (ints),
+ *           end offset of the name (long)
+ *   names   UTF-8 bytes of all names back to back
+ *
+ * Version 1 records are 24 bytes, without deadline and period; they still
+ * open and read as jobs without either.
+ */
+public class TraceFile implements Iterable<Process> {
+
+    private static final int MAGIC = 0x54484353; // "SCHT"
+    private static final int VERSION = 2;
+    private static final int HEADER = 32;
+    private static final int RECORD = 32, RECORD_V1 = 24;
+    private static final int SORTED = 1, UNSORTED = 2;
+
+    // Each mapping stays below the 2 GB limit of a single MappedByteBuffer
+    private static final int RECORDS_PER_MAP = 1 << 25;
+    private static final int NAME_BYTES_PER_MAP = 1 << 30;
+
+    private final long count;
+    private final int record;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] names;
+    private final boolean sorted;
+
+    private TraceFile(long count, int record, ByteBuffer[] records, ByteBuffer[] names, int order) {
+        this.count = count;
+        this.record = record;
+        this.records = records;
+        this.names = names;
+        this.sorted = order == SORTED || order != UNSORTED && scanSorted();
+    }
+
+    public static TraceFile open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER) throw new IOException("Not a trace file: " + path);
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a trace file: " + path);
+            int version = header.getInt(4);
+            if (version != VERSION && version != 1) throw new IOException("Unsupported trace version " + version + ": " + path);
+            int record = version == 1 ? RECORD_V1 : RECORD;
+            long count = header.getLong(8);
+            long namesStart = header.getLong(16);
+            // Version 1 and older version 2 files leave the order at 0
+            int order = header.getInt(24);
+
+            ByteBuffer[] records = new ByteBuffer[(int) ((count + RECORDS_PER_MAP - 1) / RECORDS_PER_MAP)];
+            for (int m = 0; m < records.length; m++) {
+                long first = (long) m * RECORDS_PER_MAP;
+                long size = Math.min(RECORDS_PER_MAP, count - first) * record;
+                records[m] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER + first * record, size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            long nameBytes = ch.size() - namesStart;
+            ByteBuffer[] names = new ByteBuffer[(int) ((nameBytes + NAME_BYTES_PER_MAP - 1) / NAME_BYTES_PER_MAP)];
+            for (int m = 0; m < names.length; m++) {
+                long first = (long) m * NAME_BYTES_PER_MAP;
+                names[m] = ch.map(FileChannel.MapMode.READ_ONLY, namesStart + first, Math.min(NAME_BYTES_PER_MAP, nameBytes - first));
+            }
+            return new TraceFile(count, record, records, names, order);
+        }
+    }
+
+    // Writes processes (in the order given) as a trace, noting whether they are in arrival order, and returns how many were written
+    public static long write(Path path, Iterator<? extends Process> processes) throws IOException {
+        Path nameSpill = Files.createTempFile(path.toAbsolutePath().getParent(), "names", ".tmp");
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel spill = FileChannel.open(nameSpill, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer rec = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer nameBuf = ByteBuffer.allocateDirect(1 << 16);
+            out.position(HEADER);
+            long count = 0, nameEnd = 0;
+            int lastArrival = Integer.MIN_VALUE;
+            boolean sorted = true;
+            while (processes.hasNext()) {
+                Process p = processes.next();
+                if (p.arrivalTime < lastArrival) sorted = false;
+                lastArrival = p.arrivalTime;
+                byte[] name = p.name.getBytes(StandardCharsets.UTF_8);
+                nameEnd += name.length;
+                if (rec.remaining() < RECORD) drain(rec, out);
+                rec.putInt(p.arrivalTime).putInt(p.burstTime).putInt(p.priority).putInt(p.quantum)
+                   .putInt(p.deadline).putInt(p.period).putLong(nameEnd);
+                for (int off = 0; off < name.length; ) {
+                    if (!nameBuf.hasRemaining()) drain(nameBuf, spill);
+                    int n = Math.min(nameBuf.remaining(), name.length - off);
+                    nameBuf.put(name, off, n);
+                    off += n;
+                }
+                count++;
+            }
+            drain(rec, out);
+            drain(nameBuf, spill);
+
+            long namesStart = out.position();
+            for (long done = 0, size = spill.size(); done < size; ) {
+                done += spill.transferTo(done, size - done, out);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(namesStart).putInt(sorted ? SORTED : UNSORTED).flip();
+            out.write(header, 0);
+            return count;
+        } finally {
+            Files.deleteIfExists(nameSpill);
+        }
+    }
+
+    // Streams a JSON workload into a trace without holding it in memory; the records keep the JSON order
+    public static TraceFile convert(Path json, Path trace, int defaultQuantum) throws IOException {
+        try (WorkloadReader reader = WorkloadReader.open(json, defaultQuantum)) {
+            write(trace, reader);
+        }
+        return open(trace);
+    }
+
+    /**
+     * Trace for a JSON workload, kept next to it as <file>.trace. The trace is
+     * (re)built when it is missing, older than the JSON file or in version 1,
+     * and mapped directly otherwise.
+     */
+    public static TraceFile openCached(Path json, int defaultQuantum) throws IOException {
+        Path trace = json.resolveSibling(json.getFileName() + ".trace");
+        if (Files.exists(trace) && Files.getLastModifiedTime(trace).compareTo(Files.getLastModifiedTime(json)) >= 0) {
+            TraceFile cached = open(trace);
+            // A version 1 cache has lost the deadlines and periods of the JSON
+            if (cached.record == RECORD) return cached;
+        }
+        return convert(json, trace, defaultQuantum);
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel ch) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) ch.write(buffer);
+        buffer.clear();
+    }
+
+    public long size() { return count; }
+
+    // Whether the records are in arrivalTime order
+    public boolean sortedByArrival() { return sorted; }
+
+    public int arrivalTime(long i) { return field(i, 0); }
+
+    public int burstTime(long i) { return field(i, 4); }
+
+    public int priority(long i) { return field(i, 8); }
+
+    public int quantum(long i) { return field(i, 12); }
+
+    public int deadline(long i) { return record == RECORD_V1 ? 0 : field(i, 16); }
+
+    public int period(long i) { return record == RECORD_V1 ? 0 : field(i, 20); }
+
+    public String name(long i) {
+        long start = nameEnd(i - 1), end = nameEnd(i);
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int k = 0; k < bytes.length; ) {
+            long at = start + k;
+            ByteBuffer b = names[(int) (at / NAME_BYTES_PER_MAP)];
+            int off = (int) (at % NAME_BYTES_PER_MAP);
+            int n = Math.min(bytes.length - k, b.limit() - off);
+            b.get(off, bytes, k, n);
+            k += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Process process(long i) {
+        Process p = new Process(name(i), arrivalTime(i), burstTime(i), priority(i), quantum(i));
+        p.deadline = deadline(i);
+        p.period = period(i);
+        return p;
+    }
+
+    @Override
+    public Iterator<Process> iterator() {
+        return new Iterator<Process>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() { return next < count; }
+
+            @Override
+            public Process next() {
+                if (next >= count) throw new NoSuchElementException();
+                return process(next++);
+            }
+        };
+    }
+
+    /**
+     * Processes in arrivalTime order, file order among equal arrivals. A
+     * sorted trace is streamed as it is; an unsorted one is sorted through an
+     * index of 8 bytes per process first, so it must have fewer than 2^31.
+     */
+    public Iterator<Process> arrivals() {
+        if (sorted) return iterator();
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalStateException("Trace too large to sort: " + count + " processes");
+        long[] keys = new long[(int) count];
+        for (int i = 0; i < keys.length; i++) keys[i] = ((long) arrivalTime(i) << 32) | i;
+        Arrays.sort(keys);
+        return new Iterator<Process>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() { return next < keys.length; }
+
+            @Override
+            public Process next() {
+                if (next >= keys.length) throw new NoSuchElementException();
+                return process((int) keys[next++]);
+            }
+        };
+    }
+
+    public List<Process> toList() {
+        List<Process> processes = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE - 8));
+        for (Process p : this) processes.add(p);
+        return processes;
+    }
+
+    private boolean scanSorted() {
+        for (long i = 1; i < count; i++) if (arrivalTime(i) < arrivalTime(i - 1)) return false;
+        return true;
+    }
+
+    private int field(long i, int offset) {
+        Objects.checkIndex(i, count);
+        return records[(int) (i / RECORDS_PER_MAP)].getInt((int) (i % RECORDS_PER_MAP) * record + offset);
+    }
+
+    private long nameEnd(long i) {
+        if (i < 0) return 0;
+        Objects.checkIndex(i, count);
+        return records[(int) (i / RECORDS_PER_MAP)].getLong((int) (i % RECORDS_PER_MAP) * record + record - 8);
+    }
+}
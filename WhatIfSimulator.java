@@ -0,0 +1,274 @@
+import java.util.*;
+
+/**
+ * Re-runs a schedule with one process changed without starting from time 0.
+ * The baseline run takes a {@link StreamingScheduler.Checkpoint} every
+ * checkpointEvery arrivals; a what-if restores the last checkpoint taken
+ * before the changed process (old or new version) arrives and replays only
+ * the arrivals from there. The result is identical to a full run of the
+ * changed workload through the same algorithm.
+ *
+ * Per-process maps of a what-if result are views: processes that finished
+ * before the checkpoint are read from the baseline, so building a result
+ * costs the replayed suffix plus an array copy of the execution order and
+ * timeline prefix.
+ */
+public class WhatIfSimulator {
+
+    private final Algorithm algorithm;
+    private final List<Process> input;
+    private final int[] sorted;
+
+    private final List<String> executionOrder = new ArrayList<>();
+    private final Timeline timeline = new Timeline();
+    private final List<Process> finished = new ArrayList<>();
+    private final List<Mark> marks = new ArrayList<>();
+    private final SchedulerResult baseline;
+
+    private long replayedArrivals;
+
+    // Checkpoint plus how much of the sorted input and of the output it covers
+    private static class Mark {
+        final StreamingScheduler.Checkpoint checkpoint;
+        final int position;
+        final int orderSize, timelineSize, timelineEnd;
+        // Totals over the processes finished before the checkpoint
+        final long waiting, turnaround, response;
+        final int finishedCount;
+        // Their deadline metrics, filled in once the baseline is done
+        int deadlineJobs, deadlineMisses, maxLateness;
+
+        Mark(StreamingScheduler.Checkpoint checkpoint, int position, int orderSize, Timeline timeline,
+             long waiting, long turnaround, long response, int finishedCount) {
+            this.checkpoint = checkpoint;
+            this.position = position;
+            this.orderSize = orderSize;
+            this.timelineSize = timeline.size();
+            this.timelineEnd = timeline.size() == 0 ? 0 : timeline.end(timeline.size() - 1);
+            this.waiting = waiting;
+            this.turnaround = turnaround;
+            this.response = response;
+            this.finishedCount = finishedCount;
+        }
+    }
+
+    public WhatIfSimulator(Algorithm algorithm, List<Process> input, SchedulerConfig config, int checkpointEvery) {
+        if (checkpointEvery < 1) throw new IllegalArgumentException("checkpointEvery must be positive");
+        this.algorithm = algorithm;
+        this.input = new ArrayList<>(input);
+        Process[] p = this.input.toArray(new Process[0]);
+        this.sorted = EventDrivenScheduler.sortedByArrival(p);
+
+        StreamingScheduler engine = algorithm.streaming(config, recorder(executionOrder, timeline, finished));
+        marks.add(new Mark(engine.checkpoint(), 0, 0, timeline, 0, 0, 0, 0));
+        long waiting = 0, turnaround = 0, response = 0;
+        int counted = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            // Checkpoints go between two distinct arrival times, once everything before the next one is decided
+            if (i > 0 && i % checkpointEvery == 0 && p[sorted[i]].arrivalTime > p[sorted[i - 1]].arrivalTime) {
+                engine.advanceTo(p[sorted[i]].arrivalTime);
+                for (; counted < finished.size(); counted++) {
+                    Process f = finished.get(counted);
+                    waiting += f.waitingTime;
+                    turnaround += f.turnaroundTime;
+                    response += f.startTime - f.arrivalTime;
+                }
+                marks.add(new Mark(engine.checkpoint(), i, executionOrder.size(), timeline, waiting, turnaround, response, counted));
+            }
+            engine.submit(p[sorted[i]].copy(), sorted[i]);
+        }
+        engine.finish();
+
+        baseline = new SchedulerResult();
+        baseline.executionOrder = executionOrder;
+        baseline.timeline = timeline;
+        CPUScheduler.calculateTimes(finished, baseline);
+        if (algorithm == Algorithm.AG) {
+            for (Process f : finished) baseline.quantumHistory.put(f.name, f.quantumHistory);
+        }
+        SchedulerResult prefix = new SchedulerResult();
+        int k = 0;
+        for (Mark mark : marks) {
+            for (; k < mark.finishedCount; k++) {
+                Process f = finished.get(k);
+                prefix.addLateness(f.name, f.completionTime, f.absoluteDeadline());
+            }
+            mark.deadlineJobs = prefix.lateness.size();
+            mark.deadlineMisses = prefix.deadlineMisses;
+            mark.maxLateness = prefix.maxLateness;
+        }
+    }
+
+    public SchedulerResult baseline() { return baseline; }
+
+    public int checkpointCount() { return marks.size(); }
+
+    // Arrivals the last whatIf had to replay
+    public long replayedArrivals() { return replayedArrivals; }
+
+    // The schedule with input process index replaced by changed, which keeps its name
+    public SchedulerResult whatIf(int index, Process changed) {
+        Process original = input.get(index);
+        if (!original.name.equals(changed.name)) {
+            throw new IllegalArgumentException("A what-if keeps the process name: " + original.name + " vs " + changed.name);
+        }
+        Mark mark = markBefore(Math.min(original.arrivalTime, changed.arrivalTime));
+
+        List<String> order = new ArrayList<>(executionOrder.subList(0, mark.orderSize));
+        Timeline tl = timeline.prefix(mark.timelineSize, mark.timelineEnd);
+        List<Process> done = new ArrayList<>();
+        StreamingScheduler engine = mark.checkpoint.restore(recorder(order, tl, done));
+
+        // The suffix of the arrival order with the changed process moved to its new place
+        long changedKey = ((long) changed.arrivalTime << 32) | index;
+        boolean placed = false;
+        long replayed = 0;
+        for (int i = mark.position; i < sorted.length; i++) {
+            int id = sorted[i];
+            if (id == index) continue;
+            Process p = input.get(id);
+            if (!placed && changedKey < (((long) p.arrivalTime << 32) | id)) {
+                engine.submit(changed.copy(), index);
+                placed = true;
+                replayed++;
+            }
+            engine.submit(p.copy(), id);
+            replayed++;
+        }
+        if (!placed) {
+            engine.submit(changed.copy(), index);
+            replayed++;
+        }
+        engine.finish();
+        replayedArrivals = replayed;
+
+        SchedulerResult r = new SchedulerResult();
+        r.executionOrder = order;
+        r.timeline = tl;
+        Map<String, Integer> waiting = new HashMap<>(), turnaround = new HashMap<>(), response = new HashMap<>();
+        Map<String, List<Integer>> history = new HashMap<>();
+        SchedulerResult late = new SchedulerResult();
+        long w = mark.waiting, t = mark.turnaround, rt = mark.response;
+        for (Process p : done) {
+            waiting.put(p.name, p.waitingTime);
+            turnaround.put(p.name, p.turnaroundTime);
+            response.put(p.name, p.startTime - p.arrivalTime);
+            if (algorithm == Algorithm.AG) history.put(p.name, p.quantumHistory);
+            late.addLateness(p.name, p.completionTime, p.absoluteDeadline());
+            w += p.waitingTime;
+            t += p.turnaroundTime;
+            rt += p.startTime - p.arrivalTime;
+        }
+        Set<String> replayedNames = waiting.keySet();
+        r.waitingTimes = new Overlay<>(waiting, baseline.waitingTimes, replayedNames);
+        r.turnaroundTimes = new Overlay<>(turnaround, baseline.turnaroundTimes, replayedNames);
+        r.responseTimes = new Overlay<>(response, baseline.responseTimes, replayedNames);
+        r.quantumHistory = algorithm == Algorithm.AG ? new Overlay<>(history, baseline.quantumHistory, replayedNames) : history;
+        // The changed process may gain or lose its deadline, so lateness needs the replayed names to hide baseline entries
+        r.lateness = new Overlay<>(late.lateness, baseline.lateness, replayedNames);
+        r.deadlineMisses = mark.deadlineMisses + late.deadlineMisses;
+        r.maxLateness = mark.deadlineJobs == 0 ? late.maxLateness
+                : late.lateness.isEmpty() ? mark.maxLateness : Math.max(mark.maxLateness, late.maxLateness);
+        int n = input.size();
+        r.averageWaitingTime = (double) w / n;
+        r.averageTurnaroundTime = (double) t / n;
+        r.averageResponseTime = (double) rt / n;
+        return r;
+    }
+
+    // Latest checkpoint at or before time
+    private Mark markBefore(long time) {
+        int lo = 0, hi = marks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (marks.get(mid).checkpoint.time() <= time) lo = mid; else hi = mid - 1;
+        }
+        return marks.get(lo);
+    }
+
+    private static ScheduleListener recorder(List<String> order, Timeline timeline, List<Process> finished) {
+        return new ScheduleListener() {
+            @Override
+            public void onDispatch(Process process, int time) {
+                order.add(process.name);
+            }
+
+            @Override
+            public void onSegment(Process process, int start, int end, Timeline.Reason reason) {
+                timeline.append(process == null ? null : process.name, start, end, reason);
+            }
+
+            @Override
+            public void onCompletion(Process process) {
+                finished.add(process);
+            }
+        };
+    }
+
+    // Read-only map: the replayed values for the replayed processes, the baseline for everything that finished before the checkpoint
+    private static class Overlay<V> extends AbstractMap<String, V> {
+        private final Map<String, V> replayed, base;
+        private final Set<String> replayedNames;
+        private final int size;
+
+        Overlay(Map<String, V> replayed, Map<String, V> base, Set<String> replayedNames) {
+            this.replayed = replayed;
+            this.base = base;
+            this.replayedNames = replayedNames;
+            int hidden = 0;
+            for (String name : replayedNames) if (base.containsKey(name)) hidden++;
+            this.size = base.size() - hidden + replayed.size();
+        }
+
+        @Override
+        public V get(Object key) {
+            return replayedNames.contains(key) ? replayed.get(key) : base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return replayedNames.contains(key) ? replayed.containsKey(key) : base.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<Entry<String, V>>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    Iterator<Entry<String, V>> kept = base.entrySet().iterator(), replays = replayed.entrySet().iterator();
+                    return new Iterator<Entry<String, V>>() {
+                        private Entry<String, V> next = advance();
+
+                        // Baseline entries not replayed, then the replayed ones
+                        private Entry<String, V> advance() {
+                            while (kept.hasNext()) {
+                                Entry<String, V> e = kept.next();
+                                if (!replayedNames.contains(e.getKey())) return e;
+                            }
+                            return replays.hasNext() ? replays.next() : null;
+                        }
+
+                        @Override
+                        public boolean hasNext() { return next != null; }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (next == null) throw new NoSuchElementException();
+                            Entry<String, V> e = next;
+                            next = advance();
+                            return new SimpleImmutableEntry<>(e);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() { return size; }
+            };
+        }
+    }
+}
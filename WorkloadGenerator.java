@@ -0,0 +1,195 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Synthetic workloads of any size. An instance is a reproducible workload
+ * description (public settings, like {@link SchedulerConfig}); iterating it
+ * generates the processes one at a time in arrival order, so a run of 100M
+ * processes can be fed straight into a {@link StreamingScheduler} or written
+ * to a {@link TraceFile} without ever holding the list. The same settings
+ * and seed always give the same processes.
+ *
+ * Usage: java WorkloadGenerator --out workload.trace|workload.json [--count 1000000] [--seed 42]
+ *        [--arrivals poisson|bursty] [--gap 5] [--cluster-speedup 20] [--cluster-size 50]
+ *        [--bursts exponential] [--mean-burst 10] [--priorities uniform] [--mean-priority 5.5]
+ *        [--max-priority 10] [--quanta uniform] [--mean-quantum 5.5] [--max-quantum 10]
+ */
+public class WorkloadGenerator implements Iterable<Process> {
+
+    public enum Distribution {
+        UNIFORM, EXPONENTIAL, PARETO;
+
+        // Pareto uses shape 1.5: finite mean, infinite variance
+        private static final double PARETO_SHAPE = 1.5;
+
+        public int sample(Random random, double mean) {
+            return sample(random.nextDouble(), mean);
+        }
+
+        // u is uniform in [0, 1); the result is at least 1
+        public int sample(double u, double mean) {
+            double x;
+            switch (this) {
+                case UNIFORM:
+                    x = 1 + u * (2 * mean - 1);
+                    break;
+                case EXPONENTIAL:
+                    x = -mean * Math.log(1 - u);
+                    break;
+                default:
+                    double scale = mean * (PARETO_SHAPE - 1) / PARETO_SHAPE;
+                    x = scale / Math.pow(1 - u, 1 / PARETO_SHAPE);
+            }
+            return (int) Math.max(1, Math.min(x, Integer.MAX_VALUE / 4));
+        }
+    }
+
+    public enum ArrivalProcess {
+        POISSON, // exponential gaps with mean meanGap
+        BURSTY   // clusters of arrivals clusterSpeedup times as dense, separated by quiet gaps; same mean gap overall
+    }
+
+    public long count = 1000;
+    public long seed = 42;
+
+    public ArrivalProcess arrivals = ArrivalProcess.POISSON;
+    public double meanGap = 5; // 0 puts every arrival at time 0
+    public double clusterSpeedup = 20;
+    public double meanClusterSize = 50; // arrivals per cluster, geometrically distributed
+
+    public Distribution bursts = Distribution.EXPONENTIAL;
+    public double meanBurst = 10;
+    public Distribution priorities = Distribution.UNIFORM;
+    public double meanPriority = 5.5; // uniform 1..10
+    public int maxPriority = 10;
+    public Distribution quanta = Distribution.UNIFORM;
+    public double meanQuantum = 5.5;
+    public int maxQuantum = 10;
+
+    /**
+     * Builds count processes with exponentially distributed gaps between
+     * arrivals (mean meanGap, so 0 means everything arrives at time 0),
+     * bursts drawn from the given distribution, priorities 1..10 and AG
+     * quanta 1..10. The same seed always gives the same workload.
+     */
+    public static List<Process> generate(int count, Distribution bursts, double meanBurst, double meanGap, long seed) {
+        Random random = new Random(seed);
+        List<Process> processes = new ArrayList<>(count);
+        double arrival = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && meanGap > 0) arrival += -meanGap * Math.log(1 - random.nextDouble());
+            processes.add(new Process(
+                    "P" + (i + 1),
+                    (int) arrival,
+                    bursts.sample(random, meanBurst),
+                    1 + random.nextInt(10),
+                    1 + random.nextInt(10)
+            ));
+        }
+        return processes;
+    }
+
+    @Override
+    public Iterator<Process> iterator() {
+        return new Iterator<Process>() {
+            private final SplittableRandom random = new SplittableRandom(seed);
+            private final double clusterGap = meanGap / clusterSpeedup;
+            // Quiet time after a cluster, so that a cluster and its gap average meanGap per arrival
+            private final double quietGap = meanClusterSize * meanGap * (1 - 1 / clusterSpeedup);
+            private long i;
+            private double arrival;
+
+            @Override
+            public boolean hasNext() { return i < count; }
+
+            @Override
+            public Process next() {
+                if (i >= count) throw new NoSuchElementException();
+                if (i > 0 && meanGap > 0) {
+                    if (arrivals == ArrivalProcess.POISSON) {
+                        arrival += exponential(meanGap);
+                    } else {
+                        arrival += exponential(clusterGap);
+                        if (random.nextDouble() * meanClusterSize < 1) arrival += exponential(quietGap);
+                    }
+                    if (arrival > Integer.MAX_VALUE) {
+                        throw new IllegalStateException("Arrival time of process " + (i + 1) + " does not fit in an int; lower count or meanGap");
+                    }
+                }
+                i++;
+                return new Process(
+                        "P" + i,
+                        (int) arrival,
+                        bursts.sample(random.nextDouble(), meanBurst),
+                        Math.min(maxPriority, priorities.sample(random.nextDouble(), meanPriority)),
+                        Math.min(maxQuantum, quanta.sample(random.nextDouble(), meanQuantum))
+                );
+            }
+
+            private double exponential(double mean) {
+                return -mean * Math.log(1 - random.nextDouble());
+            }
+        };
+    }
+
+    public Stream<Process> stream() {
+        int characteristics = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), count, characteristics), false);
+    }
+
+    public List<Process> toList() {
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many processes for a list: " + count);
+        List<Process> processes = new ArrayList<>((int) count);
+        for (Process p : this) processes.add(p);
+        return processes;
+    }
+
+    // Streams the workload into a binary trace and returns how many processes were written
+    public long writeTrace(Path path) throws IOException {
+        return TraceFile.write(path, iterator());
+    }
+
+    // Streams the workload into a JSON file in the test-case schema, readable by WorkloadReader
+    public long writeJson(Path path) throws IOException {
+        long written = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("{\n  \"input\": {\n    \"processes\": [");
+            for (Process p : this) {
+                out.write(written++ == 0 ? "\n      " : ",\n      ");
+                out.write("{\"name\": \"" + p.name + "\", \"arrival\": " + p.arrivalTime + ", \"burst\": " + p.burstTime
+                        + ", \"priority\": " + p.priority + ", \"quantum\": " + p.quantum + "}");
+            }
+            out.write("\n    ]\n  }\n}\n");
+        }
+        return written;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = SchedulerBenchmark.parseOptions(args);
+        String out = options.get("out");
+        if (out == null) throw new IllegalArgumentException("Missing --out <file.trace|file.json>");
+        WorkloadGenerator g = new WorkloadGenerator();
+        g.count = Long.parseLong(options.getOrDefault("count", "1000000"));
+        g.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        g.arrivals = ArrivalProcess.valueOf(options.getOrDefault("arrivals", "poisson").toUpperCase());
+        g.meanGap = Double.parseDouble(options.getOrDefault("gap", "5"));
+        g.clusterSpeedup = Double.parseDouble(options.getOrDefault("cluster-speedup", "20"));
+        g.meanClusterSize = Double.parseDouble(options.getOrDefault("cluster-size", "50"));
+        g.bursts = Distribution.valueOf(options.getOrDefault("bursts", "exponential").toUpperCase());
+        g.meanBurst = Double.parseDouble(options.getOrDefault("mean-burst", "10"));
+        g.priorities = Distribution.valueOf(options.getOrDefault("priorities", "uniform").toUpperCase());
+        g.meanPriority = Double.parseDouble(options.getOrDefault("mean-priority", "5.5"));
+        g.maxPriority = Integer.parseInt(options.getOrDefault("max-priority", "10"));
+        g.quanta = Distribution.valueOf(options.getOrDefault("quanta", "uniform").toUpperCase());
+        g.meanQuantum = Double.parseDouble(options.getOrDefault("mean-quantum", "5.5"));
+        g.maxQuantum = Integer.parseInt(options.getOrDefault("max-quantum", "10"));
+
+        long start = System.nanoTime();
+        Path path = Paths.get(out);
+        long written = out.endsWith(".json") ? g.writeJson(path) : g.writeTrace(path);
+        System.out.printf("%d processes written to %s in %.1f s%n", written, path, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Pull parser for workload files in the test-case schema
+ * ({"input": {"processes": [{"name", "arrival", "burst", "priority", "quantum"}, ...]}}),
+ * where a process may also have the real-time "deadline" and "period".
+ * Processes are decoded one record at a time straight from a small byte
+ * buffer, so no DOM or whole-file String is ever built and memory stays flat
+ * regardless of file size. Everything outside input.processes is skipped,
+ * except the contextSwitch, rrQuantum and agingInterval settings of input.
+ */
+public class WorkloadReader implements Iterator<Process>, Closeable {
+
+    private static final byte[] INPUT = ascii("input"), PROCESSES = ascii("processes"),
+            NAME = ascii("name"), ARRIVAL = ascii("arrival"), BURST = ascii("burst"),
+            PRIORITY = ascii("priority"), QUANTUM = ascii("quantum"),
+            CONTEXT_SWITCH = ascii("contextSwitch"), RR_QUANTUM = ascii("rrQuantum"),
+            AGING_INTERVAL = ascii("agingInterval"), DEADLINE = ascii("deadline"), PERIOD = ascii("period");
+
+    private final InputStream in;
+    private final byte[] buf = new byte[1 << 16];
+    private int pos, limit;
+    private long consumed;
+
+    // Scratch for keys and strings
+    private byte[] text = new byte[64];
+    private int textLength;
+
+    private final int defaultQuantum;
+    private final SchedulerConfig config = new SchedulerConfig();
+
+    private boolean firstElement = true;
+    private boolean done;
+    private Process next;
+
+    public WorkloadReader(InputStream in, int defaultQuantum) throws IOException {
+        this.in = in;
+        this.defaultQuantum = defaultQuantum;
+        done = !enterProcesses();
+    }
+
+    // Records without a quantum get defaultQuantum (Main uses 4 for the non-AG tests)
+    public static WorkloadReader open(Path path, int defaultQuantum) throws IOException {
+        return new WorkloadReader(Files.newInputStream(path), defaultQuantum);
+    }
+
+    public static WorkloadReader open(Path path) throws IOException {
+        return open(path, 0);
+    }
+
+    public static List<Process> readAll(Path path, int defaultQuantum) throws IOException {
+        List<Process> processes = new ArrayList<>();
+        try (WorkloadReader reader = open(path, defaultQuantum)) {
+            while (reader.hasNext()) processes.add(reader.next());
+        }
+        return processes;
+    }
+
+    /**
+     * contextSwitch, rrQuantum and agingInterval from the input object, with
+     * SchedulerConfig defaults for missing ones. Settings that come after the
+     * processes array are only filled in once every process has been read.
+     */
+    public SchedulerConfig config() { return config; }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = readProcess();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Process next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Process p = next;
+        next = null;
+        return p;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Walks root -> input -> processes; false if the file has no processes array
+    private boolean enterProcesses() throws IOException {
+        expect('{');
+        if (peekToken() == '}') return false;
+        do {
+            readKey();
+            if (keyIs(INPUT) && peekToken() == '{') {
+                expect('{');
+                if (peekToken() == '}') return false;
+                do {
+                    readKey();
+                    if (keyIs(PROCESSES)) {
+                        expect('[');
+                        return true;
+                    }
+                    if (!readSetting()) skipValue();
+                } while (commaOr('}'));
+                return false;
+            }
+            skipValue();
+        } while (commaOr('}'));
+        return false;
+    }
+
+    // Reads the rest of the input object once the processes array has ended
+    private void skipToEndOfInput() throws IOException {
+        while (commaOr('}')) {
+            readKey();
+            if (!readSetting()) skipValue();
+        }
+    }
+
+    private boolean readSetting() throws IOException {
+        if (keyIs(CONTEXT_SWITCH)) config.contextSwitch = readInt();
+        else if (keyIs(RR_QUANTUM)) config.rrQuantum = readInt();
+        else if (keyIs(AGING_INTERVAL)) config.agingInterval = readInt();
+        else return false;
+        return true;
+    }
+
+    private Process readProcess() throws IOException {
+        if (firstElement ? peekToken() == ']' : !commaOr(']')) {
+            if (firstElement) expect(']');
+            done = true;
+            skipToEndOfInput();
+            return null;
+        }
+        firstElement = false;
+
+        String name = null;
+        int arrival = 0, burst = 0, priority = 0, quantum = defaultQuantum, deadline = 0, period = 0;
+        boolean hasArrival = false, hasBurst = false;
+        expect('{');
+        if (peekToken() != '}') {
+            do {
+                readKey();
+                if (keyIs(NAME)) {
+                    readString();
+                    name = new String(text, 0, textLength, StandardCharsets.UTF_8);
+                } else if (keyIs(ARRIVAL)) {
+                    arrival = readInt();
+                    hasArrival = true;
+                } else if (keyIs(BURST)) {
+                    burst = readInt();
+                    hasBurst = true;
+                } else if (keyIs(PRIORITY)) {
+                    priority = readInt();
+                } else if (keyIs(QUANTUM)) {
+                    quantum = readInt();
+                } else if (keyIs(DEADLINE)) {
+                    deadline = readInt();
+                } else if (keyIs(PERIOD)) {
+                    period = readInt();
+                } else {
+                    skipValue();
+                }
+            } while (commaOr('}'));
+        } else {
+            expect('}');
+        }
+        if (name == null || !hasArrival || !hasBurst) throw malformed("process needs name, arrival and burst");
+        Process p = new Process(name, arrival, burst, priority, quantum);
+        p.deadline = deadline;
+        p.period = period;
+        return p;
+    }
+
+    // ---- tokens ----
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = Math.max(0, in.read(buf));
+        return limit > 0;
+    }
+
+    // Makes n bytes available from pos, moving the unread ones to the front; false at the end of input
+    private boolean available(int n) throws IOException {
+        if (limit - pos >= n) return true;
+        int left = limit - pos;
+        System.arraycopy(buf, pos, buf, 0, left);
+        consumed += pos;
+        pos = 0;
+        limit = left;
+        while (limit < n) {
+            int read = in.read(buf, limit, buf.length - limit);
+            if (read <= 0) return false;
+            limit += read;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) throw malformed("unexpected end of input");
+        return buf[pos++];
+    }
+
+    // Next non-whitespace byte, not consumed
+    private int peekToken() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) throw malformed("unexpected end of input");
+            int c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (peekToken() != c) throw malformed("expected '" + c + "'");
+        pos++;
+    }
+
+    // Consumes a ',' (true) or the closing bracket (false)
+    private boolean commaOr(char close) throws IOException {
+        int c = peekToken();
+        pos++;
+        if (c == ',') return true;
+        if (c == close) return false;
+        throw malformed("expected ',' or '" + close + "'");
+    }
+
+    private void readKey() throws IOException {
+        readString();
+        expect(':');
+    }
+
+    private boolean keyIs(byte[] key) {
+        return Arrays.equals(text, 0, textLength, key, 0, key.length);
+    }
+
+    // String value into text as UTF-8
+    private void readString() throws IOException {
+        expect('"');
+        textLength = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') return;
+            if (c != '\\') {
+                put(c);
+                continue;
+            }
+            c = read();
+            switch (c) {
+                case 'b': put('\b'); break;
+                case 'f': put('\f'); break;
+                case 'n': put('\n'); break;
+                case 'r': put('\r'); break;
+                case 't': put('\t'); break;
+                case 'u': putCodePoint(readEscapedCodePoint()); break;
+                default: put(c); // \" \\ \/
+            }
+        }
+    }
+
+    private int readEscapedCodePoint() throws IOException {
+        int unit = readHex4();
+        // The low half of a pair may start in the next buffer
+        if (Character.isHighSurrogate((char) unit) && available(2) && buf[pos] == '\\' && buf[pos + 1] == 'u') {
+            pos += 2;
+            int low = readHex4();
+            if (Character.isLowSurrogate((char) low)) return Character.toCodePoint((char) unit, (char) low);
+            putCodePoint(unit);
+            return low;
+        }
+        return unit;
+    }
+
+    private int readHex4() throws IOException {
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            int d = Character.digit(read(), 16);
+            if (d < 0) throw malformed("bad \\u escape");
+            v = v << 4 | d;
+        }
+        return v;
+    }
+
+    private void putCodePoint(int cp) {
+        if (cp < 0x80) {
+            put(cp);
+        } else if (cp < 0x800) {
+            put(0xC0 | cp >> 6);
+            put(0x80 | cp & 0x3F);
+        } else if (cp < 0x10000) {
+            put(0xE0 | cp >> 12);
+            put(0x80 | cp >> 6 & 0x3F);
+            put(0x80 | cp & 0x3F);
+        } else {
+            put(0xF0 | cp >> 18);
+            put(0x80 | cp >> 12 & 0x3F);
+            put(0x80 | cp >> 6 & 0x3F);
+            put(0x80 | cp & 0x3F);
+        }
+    }
+
+    private void put(int b) {
+        if (textLength == text.length) text = Arrays.copyOf(text, textLength * 2);
+        text[textLength++] = (byte) b;
+    }
+
+    // Integer value; fractions and exponents are truncated like org.json's getInt
+    private int readInt() throws IOException {
+        int c = peekToken();
+        boolean negative = c == '-';
+        if (negative) pos++;
+        long v = 0;
+        int digits = 0;
+        while (pos < limit || fill()) {
+            c = buf[pos];
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+            if (v > 1L << 32) throw malformed("integer out of range");
+            digits++;
+            pos++;
+        }
+        if (digits == 0) throw malformed("expected a number");
+        if ((pos < limit || fill()) && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+            textLength = 0;
+            if (negative) put('-');
+            for (char d : Long.toString(v).toCharArray()) put(d);
+            while ((pos < limit || fill()) && isNumberByte(buf[pos])) put(buf[pos++]);
+            double d = Double.parseDouble(new String(text, 0, textLength, StandardCharsets.US_ASCII));
+            if (d < Integer.MIN_VALUE || d > Integer.MAX_VALUE) throw malformed("integer out of range");
+            return (int) d;
+        }
+        v = negative ? -v : v;
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) throw malformed("integer out of range");
+        return (int) v;
+    }
+
+    private static boolean isNumberByte(int c) {
+        return c >= '0' && c <= '9' || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-';
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peekToken();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                pos++;
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+            } while (depth > 0);
+        } else {
+            // number, true, false or null
+            while ((pos < limit || fill()) && buf[pos] != ',' && buf[pos] != '}' && buf[pos] != ']'
+                    && buf[pos] != ' ' && buf[pos] != '\n' && buf[pos] != '\r' && buf[pos] != '\t') pos++;
+        }
+    }
+
+    private void skipString() throws IOException {
+        pos++; // opening quote
+        while (true) {
+            int c = read();
+            if (c == '"') return;
+            if (c == '\\') read();
+        }
+    }
+
+    private IllegalArgumentException malformed(String message) {
+        return new IllegalArgumentException("Malformed workload at byte " + (consumed + pos) + ": " + message);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
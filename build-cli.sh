@@ -0,0 +1,24 @@
+#!/bin/sh
+# Builds build/scheduler.jar (entry point SchedulerCli) and build/scheduler.jsa, a
+# dynamic class-data-sharing archive of the classes a run loads, so that each
+# invocation maps them instead of loading and verifying them again. The archive
+# only works with the JDK that built it; rerun this script after changing either.
+set -e
+cd "$(dirname "$0")"
+rm -rf build
+mkdir -p build/classes
+
+# Main needs org.json; nothing the CLI uses does
+javac -d build/classes $(ls *.java | grep -v '^Main\.java$')
+jar --create --file build/scheduler.jar --main-class SchedulerCli -C build/classes .
+
+# Training run: every algorithm and both output formats in one JVM, so the
+# archive also holds the lambda and string concatenation classes they spin up
+{
+    for f in AG/*.json Other_Schedulers/*.json; do
+        echo "--algorithm sjf,rr,priority,ag,mlfq,cfs,edf,rm $f"
+        echo "--format json --algorithm sjf,rr,priority,ag,mlfq,cfs,edf,rm $f"
+    done
+} | java -XX:ArchiveClassesAtExit=build/scheduler.jsa -jar build/scheduler.jar --batch > /dev/null
+
+echo "Built build/scheduler.jar and build/scheduler.jsa; run with ./scheduler.sh [options] workload.json ..."
@@ -0,0 +1,8 @@
+#!/bin/sh
+# Runs SchedulerCli from the jar build-cli.sh made, with its CDS archive when present.
+# Short runs never get hot enough for the optimising compiler, so only C1 is used.
+dir="$(dirname "$0")/build"
+if [ -f "$dir/scheduler.jsa" ]; then
+    exec java -XX:SharedArchiveFile="$dir/scheduler.jsa" -XX:TieredStopAtLevel=1 -jar "$dir/scheduler.jar" "$@"
+fi
+exec java -XX:TieredStopAtLevel=1 -jar "$dir/scheduler.jar" "$@"